@@ -0,0 +1,166 @@
+package proj;
+
+import java.util.Arrays;
+
+// Board for the standard 8x8 grid, packed into bitmasks. Cell (r, c) is bit
+// r * GRID_SIZE + c, so the whole grid fits in a single long and every check is
+// a couple of bit operations with no allocation.
+public class BitBoard implements Board {
+    public static final int CELLS = Model.GRID_SIZE * Model.GRID_SIZE;
+    public static final byte NO_SHIP = 0;
+
+    // Cells occupied by a ship, cells attacked that were hits, cells attacked that were misses
+    private long ships;
+    private long hits;
+    private long misses;
+
+    // Ship id per cell (1-based, NO_SHIP when empty) and the cell mask of each ship id
+    private final byte[] shipIds = new byte[CELLS];
+    private final long[] shipMasks = new long[Byte.MAX_VALUE + 1];
+
+    @Override
+    public int getSize() {
+        return Model.GRID_SIZE;
+    }
+
+    public static int index(int r, int c) {
+        return r * Model.GRID_SIZE + c;
+    }
+
+    public static long bit(int r, int c) {
+        return 1L << index(r, c);
+    }
+
+    // Ship placement
+    @Override
+    public void placeShip(int r, int c, int shipId) {
+        int i = index(r, c);
+        long b = 1L << i;
+        ships |= b;
+        shipIds[i] = (byte) shipId;
+        shipMasks[shipId] |= b;
+    }
+
+    @Override
+    public void removeShip(int r, int c) {
+        int i = index(r, c);
+        long b = 1L << i;
+        ships &= ~b;
+        shipMasks[shipIds[i]] &= ~b;
+        shipIds[i] = NO_SHIP;
+    }
+
+    @Override
+    public boolean hasShip(int r, int c) {
+        return (ships & bit(r, c)) != 0;
+    }
+
+    @Override
+    public int shipIdAt(int r, int c) {
+        return shipIds[index(r, c)];
+    }
+
+    // Attacks
+    @Override
+    public boolean isAttacked(int r, int c) {
+        return ((hits | misses) & bit(r, c)) != 0;
+    }
+
+    @Override
+    public boolean isHit(int r, int c) {
+        return (hits & bit(r, c)) != 0;
+    }
+
+    @Override
+    public boolean isMiss(int r, int c) {
+        return (misses & bit(r, c)) != 0;
+    }
+
+    // Resolve an attack against our own ships, returns true on a hit
+    @Override
+    public boolean receiveAttack(int r, int c) {
+        long b = bit(r, c);
+        if (((hits | misses) & b) != 0) {
+            return false; // Repeated attack never counts twice
+        }
+        if ((ships & b) != 0) {
+            hits |= b;
+            return true;
+        }
+        misses |= b;
+        return false;
+    }
+
+    // Record the outcome of an attack whose result came from the other side
+    @Override
+    public void markHit(int r, int c) {
+        hits |= bit(r, c);
+    }
+
+    @Override
+    public void markMiss(int r, int c) {
+        misses |= bit(r, c);
+    }
+
+    @Override
+    public void forEachAttack(AttackVisitor visitor) {
+        for (long rest = hits; rest != 0; rest &= rest - 1) {
+            visitor.visit(Long.numberOfTrailingZeros(rest), true);
+        }
+        for (long rest = misses & ~hits; rest != 0; rest &= rest - 1) {
+            visitor.visit(Long.numberOfTrailingZeros(rest), false);
+        }
+    }
+
+    @Override
+    public boolean isSunk(int shipId) {
+        long mask = shipMasks[shipId];
+        return mask != 0 && (mask & ~hits) == 0;
+    }
+
+    @Override
+    public boolean allShipsSunk() {
+        return ships != 0 && (ships & ~hits) == 0;
+    }
+
+    @Override
+    public int hitCount() {
+        return Long.bitCount(hits);
+    }
+
+    @Override
+    public int shipCellCount() {
+        return Long.bitCount(ships);
+    }
+
+    public long getShips() {
+        return ships;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    // Cells of one ship, 0 for an unused id
+    public long getShipMask(int shipId) {
+        return shipMasks[shipId];
+    }
+
+    @Override
+    public void clearShips() {
+        ships = 0;
+        Arrays.fill(shipIds, NO_SHIP);
+        Arrays.fill(shipMasks, 0L);
+    }
+
+    @Override
+    public void clear() {
+        clearShips();
+        hits = 0;
+        misses = 0;
+    }
+}
@@ -0,0 +1,64 @@
+package proj;
+
+// One side of a game: where the ships are and which cells have been attacked.
+// BitBoard packs the standard 8x8 grid into longs; SparseBoard keeps only ship
+// cells and shots, so larger variants cost memory per ship and per shot rather
+// than per cell. Ship ids are 1-based and at most Variant.MAX_SHIPS.
+public interface Board {
+    int getSize();
+
+    default boolean inBounds(int r, int c) {
+        return r >= 0 && r < getSize() && c >= 0 && c < getSize();
+    }
+
+    // Ship placement
+    void placeShip(int r, int c, int shipId);
+
+    void removeShip(int r, int c);
+
+    boolean hasShip(int r, int c);
+
+    // Id of the ship on (r, c), 0 when empty
+    int shipIdAt(int r, int c);
+
+    // Attacks
+    boolean isAttacked(int r, int c);
+
+    boolean isHit(int r, int c);
+
+    boolean isMiss(int r, int c);
+
+    // Resolve an attack against our own ships, returns true on a hit.
+    // A repeated attack never counts twice.
+    boolean receiveAttack(int r, int c);
+
+    // Record the outcome of an attack whose result came from the other side
+    void markHit(int r, int c);
+
+    void markMiss(int r, int c);
+
+    interface AttackVisitor {
+        void visit(int cell, boolean hit);
+    }
+
+    // Every attacked cell (r * size + c) in no particular order; costs the
+    // number of shots rather than the number of cells
+    void forEachAttack(AttackVisitor visitor);
+
+    boolean isSunk(int shipId);
+
+    boolean allShipsSunk();
+
+    int hitCount();
+
+    int shipCellCount();
+
+    void clearShips();
+
+    void clear();
+
+    // The dense bitboard for the standard grid, the sparse one for anything else
+    static Board create(Variant variant) {
+        return variant.getSize() == Model.GRID_SIZE ? new BitBoard() : new SparseBoard(variant.getSize());
+    }
+}
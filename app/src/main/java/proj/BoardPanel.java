@@ -0,0 +1,168 @@
+package proj;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.*;
+
+// One board drawn as a single component. The Board itself belongs to the game
+// loop, so the panel keeps its own copy of the marked cells: the loop reads a
+// changed cell's state (stateOf) and posts it to the EDT, which stores it here
+// and repaints just that cell's rectangle. Only cells inside the clip are
+// painted, and clicks are mapped to cells by division. Larger variants get
+// smaller cells and thinner grid lines in the same space; past 64 cells a side
+// there are no grid lines, and a mostly empty board is painted by walking its
+// marked cells rather than every cell in the clip.
+public class BoardPanel extends JComponent {
+    private static final long serialVersionUID = 1L;
+    private static final Color OCEAN = new Color(41, 128, 185);
+    private static final Color GRID_LINES = Color.BLACK;
+    private static final int CELL_SIZE = 50;
+    private static final int GAP = 2;
+    private static final int PREFERRED_SIDE = Model.GRID_SIZE * CELL_SIZE + (Model.GRID_SIZE - 1) * GAP;
+
+    // Cell states handed from the game loop; unmarked cells are not stored
+    public static final byte EMPTY = 0;
+    public static final byte SHIP = 1;
+    public static final byte HIT = 2;
+    public static final byte MISS = 3;
+
+    public interface CellListener {
+        void cellClicked(int row, int col);
+    }
+
+    private final boolean showShips;
+    private final int size;
+    private final int gap;
+    private final CellMap cells = new CellMap(); // By row * size + col, EDT only
+
+    public BoardPanel(int size, boolean showShips, CellListener listener) {
+        this.showShips = showShips;
+        this.size = size;
+        this.gap = size <= 2 * Model.GRID_SIZE ? GAP : size <= 8 * Model.GRID_SIZE ? 1 : 0;
+        setOpaque(true);
+        setBorder(BorderFactory.createLineBorder(Color.WHITE, 3));
+        setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int col = cellAt(e.getX(), getInsets().left, getWidth() - getInsets().right);
+                int row = cellAt(e.getY(), getInsets().top, getHeight() - getInsets().bottom);
+                if (row >= 0 && col >= 0) listener.cellClicked(row, col);
+            }
+        });
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        Insets insets = getInsets();
+        int cellSize = Math.max(1, Math.min(CELL_SIZE, PREFERRED_SIDE / size));
+        int side = size * cellSize + (size - 1) * gap;
+        return new Dimension(side + insets.left + insets.right, side + insets.top + insets.bottom);
+    }
+
+    // Pixel where a cell starts along one axis; cells share the space evenly
+    private int cellStart(int index, int start, int end) {
+        return start + (int) ((long) index * (end - start + gap) / size);
+    }
+
+    // Cell index along one axis for a pixel position, -1 outside the grid: the
+    // last cell whose cellStart is at or before the pixel, so a click lands on
+    // the cell that was drawn there (the gap after a cell counts as that cell)
+    private int cellAt(int pixel, int start, int end) {
+        if (pixel < start || pixel >= end) return -1;
+        int cell = (int) (((long) (pixel - start + 1) * size - 1) / (end - start + gap));
+        return Math.min(cell, size - 1);
+    }
+
+    // First cell that can show at a pixel: when cells are narrower than a pixel
+    // several start on the same one, so this is the cell over the pixel before
+    private int firstCellAt(int pixel, int start, int end) {
+        return pixel > start ? cellAt(Math.min(pixel, end) - 1, start, end) : 0;
+    }
+
+    // What a cell shows; call on the game loop, which owns the board
+    public static byte stateOf(Board board, int row, int col) {
+        if (board.isHit(row, col)) return HIT;
+        if (board.isMiss(row, col)) return MISS;
+        return board.hasShip(row, col) ? SHIP : EMPTY;
+    }
+
+    // EDT only
+    public void setCell(int row, int col, byte state) {
+        if (row < 0 || row >= size || col < 0 || col >= size) return;
+        if (state == EMPTY) cells.remove(row * size + col);
+        else cells.put(row * size + col, state);
+        repaintCell(row, col);
+    }
+
+    // EDT only
+    public void clearCells() {
+        cells.clear();
+        repaint();
+    }
+
+    private void repaintCell(int row, int col) {
+        Insets insets = getInsets();
+        int right = getWidth() - insets.right;
+        int bottom = getHeight() - insets.bottom;
+        int x = cellStart(col, insets.left, right);
+        int y = cellStart(row, insets.top, bottom);
+        repaint(x, y, Math.max(1, cellStart(col + 1, insets.left, right) - x),
+                Math.max(1, cellStart(row + 1, insets.top, bottom) - y));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Insets insets = getInsets();
+        int left = insets.left;
+        int top = insets.top;
+        int right = getWidth() - insets.right;
+        int bottom = getHeight() - insets.bottom;
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        // Without grid lines the background is the ocean and only marked cells are drawn
+        g.setColor(gap > 0 ? GRID_LINES : OCEAN);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // Only rows and columns that intersect the clip
+        int firstRow = firstCellAt(clip.y, top, bottom);
+        int lastRow = cellAt(Math.min(clip.y + clip.height, bottom) - 1, top, bottom);
+        int firstCol = firstCellAt(clip.x, left, right);
+        int lastCol = cellAt(Math.min(clip.x + clip.width, right) - 1, left, right);
+        if (lastRow < 0 || lastCol < 0) return;
+
+        if (gap == 0 && cells.count < (long) (lastRow - firstRow + 1) * (lastCol - firstCol + 1)) {
+            // Fewer marked cells than cells in the clip: walk the marks instead
+            cells.forEach((cell, state) -> {
+                int r = cell / size;
+                int c = cell % size;
+                if (r >= firstRow && r <= lastRow && c >= firstCol && c <= lastCol) {
+                    paintCell(g, r, c, state, left, top, right, bottom);
+                }
+            });
+            return;
+        }
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                paintCell(g, r, c, cells.get(r * size + c), left, top, right, bottom);
+            }
+        }
+    }
+
+    // Boards too big for the panel still show every marked cell as at least one pixel
+    private void paintCell(Graphics g, int r, int c, int state, int left, int top, int right, int bottom) {
+        if (state == HIT) g.setColor(Color.RED);
+        else if (state == MISS) g.setColor(Color.YELLOW);
+        else if (state == SHIP && showShips) g.setColor(Color.BLUE);
+        else if (gap > 0) g.setColor(OCEAN);
+        else return;
+
+        int x = cellStart(c, left, right);
+        int y = cellStart(r, top, bottom);
+        g.fillRect(x, y, Math.max(1, cellStart(c + 1, left, right) - x - gap),
+                Math.max(1, cellStart(r + 1, top, bottom) - y - gap));
+    }
+}
@@ -0,0 +1,169 @@
+package proj;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Targeting for computer players. Every legal position of every ship is
+// precomputed once as a cell mask; choosing a shot counts, for each unknown
+// cell, how many positions still consistent with the shots so far cover it and
+// fires at the densest cell. Positions over a hit count many times more, so the
+// search closes in on a ship once it is found. Sunk ships are taken out: their
+// cells block positions like misses and their size is no longer searched for.
+// A move is a few hundred mask tests into a reused array, with no allocation.
+public class BotBrain implements TargetingStrategy {
+    // Ship sizes of the fleet, largest first, from the counts in Model
+    static final int[] FLEET = buildFleet();
+
+    // All positions of a ship of each size, horizontal and vertical, indexed by size
+    private static final long[][] PLACEMENTS = buildPlacements();
+
+    // Number of ships of each size, indexed by size
+    private static final int[] COPIES = new int[PLACEMENTS.length];
+    static {
+        for (int size : FLEET) COPIES[size]++;
+    }
+
+    // How much more a position through a known hit weighs than an open one
+    private static final int HIT_WEIGHT = 50;
+
+    private final SplittableRandom random;
+    private final int[] density = new int[BitBoard.CELLS];
+    private final int[] copiesLeft = COPIES.clone();
+    private long hits;
+    private long misses;
+    private long sunk;
+
+    public BotBrain(SplittableRandom random) {
+        this.random = random;
+    }
+
+    private static int[] buildFleet() {
+        int[] fleet = new int[Model.LARGE_SHIP_COUNT + Model.MEDIUM_SHIP_COUNT + Model.SMALL_SHIP_COUNT];
+        int n = 0;
+        for (int i = 0; i < Model.LARGE_SHIP_COUNT; i++) fleet[n++] = Model.LARGE_SHIP_SIZE;
+        for (int i = 0; i < Model.MEDIUM_SHIP_COUNT; i++) fleet[n++] = Model.MEDIUM_SHIP_SIZE;
+        for (int i = 0; i < Model.SMALL_SHIP_COUNT; i++) fleet[n++] = Model.SMALL_SHIP_SIZE;
+        return fleet;
+    }
+
+    private static long[][] buildPlacements() {
+        int maxSize = 0;
+        for (int size : FLEET) maxSize = Math.max(maxSize, size);
+
+        long[][] placements = new long[maxSize + 1][];
+        for (int size : FLEET) {
+            if (placements[size] != null) continue;
+            int span = Model.GRID_SIZE - size + 1;
+            long[] masks = new long[2 * span * Model.GRID_SIZE];
+            int n = 0;
+            for (int fixed = 0; fixed < Model.GRID_SIZE; fixed++) {
+                for (int start = 0; start < span; start++) {
+                    long horizontal = 0;
+                    long vertical = 0;
+                    for (int k = 0; k < size; k++) {
+                        horizontal |= BitBoard.bit(fixed, start + k);
+                        vertical |= BitBoard.bit(start + k, fixed);
+                    }
+                    masks[n++] = horizontal;
+                    masks[n++] = vertical;
+                }
+            }
+            placements[size] = masks;
+        }
+        return placements;
+    }
+
+    // Forget all shots for a new game
+    @Override
+    public void reset() {
+        hits = 0;
+        misses = 0;
+        sunk = 0;
+        System.arraycopy(COPIES, 0, copiesLeft, 0, COPIES.length);
+    }
+
+    @Override
+    public void recordShot(int cell, boolean isHit) {
+        if (isHit) hits |= 1L << cell;
+        else misses |= 1L << cell;
+    }
+
+    @Override
+    public void recordSunk(long shipCells) {
+        int size = Long.bitCount(shipCells);
+        if (size >= copiesLeft.length || copiesLeft[size] == 0) return; // Not a ship of our fleet
+        copiesLeft[size]--;
+        sunk |= shipCells;
+    }
+
+    public int hitCount() {
+        return Long.bitCount(hits);
+    }
+
+    // Cell index (row * GRID_SIZE + col) of the next shot, -1 once every cell is taken
+    @Override
+    public int chooseShot() {
+        long unknown = ~(hits | misses);
+        if (BitBoard.CELLS < 64) unknown &= (1L << BitBoard.CELLS) - 1;
+        if (unknown == 0) return -1;
+
+        // Hits on sunk ships are accounted for and no longer pull the search
+        long blocked = misses | sunk;
+        long liveHits = hits & ~sunk;
+        Arrays.fill(density, 0);
+        for (int size = 0; size < PLACEMENTS.length; size++) {
+            long[] masks = PLACEMENTS[size];
+            int copies = copiesLeft[size];
+            if (masks == null || copies == 0) continue;
+            for (long mask : masks) {
+                if ((mask & blocked) != 0) continue; // Ship cannot be here
+                long open = mask & unknown;
+                if (open == 0) continue;
+                int weight = (mask & liveHits) != 0 ? HIT_WEIGHT * Long.bitCount(mask & liveHits) * copies : copies;
+                for (long m = open; m != 0; m &= m - 1) {
+                    density[Long.numberOfTrailingZeros(m)] += weight;
+                }
+            }
+        }
+
+        // Densest unknown cell, ties broken uniformly at random
+        int best = -1;
+        int bestDensity = -1;
+        int ties = 0;
+        for (long m = unknown; m != 0; m &= m - 1) {
+            int cell = Long.numberOfTrailingZeros(m);
+            int d = density[cell];
+            if (d > bestDensity) {
+                best = cell;
+                bestDensity = d;
+                ties = 1;
+            } else if (d == bestDensity && random.nextInt(++ties) == 0) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    // Place the whole fleet at random legal positions, ship ids 1..n in FLEET order
+    public static void placeFleet(BitBoard board, SplittableRandom random) {
+        board.clearShips();
+        long occupied = 0;
+        for (int ship = 0; ship < FLEET.length; ship++) {
+            long[] masks = PLACEMENTS[FLEET[ship]];
+
+            // Reservoir pick among the positions that do not overlap earlier ships
+            long chosen = 0;
+            int seen = 0;
+            for (long mask : masks) {
+                if ((mask & occupied) == 0 && random.nextInt(++seen) == 0) {
+                    chosen = mask;
+                }
+            }
+            occupied |= chosen;
+            for (long m = chosen; m != 0; m &= m - 1) {
+                int cell = Long.numberOfTrailingZeros(m);
+                board.placeShip(cell / Model.GRID_SIZE, cell % Model.GRID_SIZE, ship + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package proj;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+// A computer player sitting in a GameServer seat. It receives exactly the bytes
+// the server would write to a socket, decodes them with its own WireProtocol,
+// and answers by calling the seat's handlers as if the messages had been read
+// from a client. Shots are chosen by BotBrain and delayed by a think time so a
+// human opponent's GUI sees a normal pace.
+public class BotPlayer implements ProtocolListener {
+    public static final String DEFAULT_NAME = "Bot";
+
+    // Runs a task on the server's loop thread after a delay
+    public interface Scheduler {
+        void schedule(long delayMs, Runnable task);
+    }
+
+    private final ProtocolListener seat;
+    private final Scheduler scheduler;
+    private final long thinkMs;
+    private final String name;
+    private final SplittableRandom random;
+    private final BotBrain brain;
+    private final BitBoard board = new BitBoard();
+    private final WireProtocol decoder = new WireProtocol();
+    private ByteBuffer in = ByteBuffer.allocate(256);
+
+    private boolean active = true;
+    private boolean gameOver = true;
+    private int game = 0;
+    private int lastShot = -1;
+
+    public BotPlayer(ProtocolListener seat, Scheduler scheduler, long thinkMs, String name, long seed) {
+        this.seat = seat;
+        this.scheduler = scheduler;
+        this.thinkMs = thinkMs;
+        this.name = name;
+        this.random = new SplittableRandom(seed);
+        this.brain = new BotBrain(random);
+    }
+
+    // Introduce ourselves and get ready for the first game
+    public void start() {
+        seat.onPlayerName(name);
+        newGame();
+    }
+
+    public void stop() {
+        active = false;
+    }
+
+    private void newGame() {
+        game++;
+        gameOver = false;
+        lastShot = -1;
+        board.clear();
+        brain.reset();
+        BotBrain.placeFleet(board, random);
+        seat.onReady();
+    }
+
+    // Bytes the server wrote to this seat, copied in like a socket read
+    public void receive(ByteBuffer bytes) {
+        if (in.remaining() < bytes.remaining()) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(in.capacity() * 2, in.position() + bytes.remaining()));
+            in.flip();
+            bigger.put(in);
+            in = bigger;
+        }
+        in.put(bytes);
+    }
+
+    // Act on everything received so far. Kept apart from receive() because our
+    // answers may write to the seat the bytes were just taken from.
+    public void processReceived() {
+        in.flip();
+        decoder.decode(in, this);
+        in.compact();
+    }
+
+    private void scheduleShot() {
+        int shotGame = game;
+        scheduler.schedule(thinkMs, () -> {
+            if (active && !gameOver && game == shotGame && lastShot < 0) shoot();
+        });
+    }
+
+    private void shoot() {
+        int cell = brain.chooseShot();
+        if (cell < 0) return;
+        lastShot = cell;
+        seat.onAttack(cell / Model.GRID_SIZE, cell % Model.GRID_SIZE);
+    }
+
+    @Override
+    public void onHello() {
+    }
+
+    @Override
+    public void onPlayerName(String opponentName) {
+    }
+
+    @Override
+    public void onReady() {
+    }
+
+    @Override
+    public void onStart(boolean serverStarts) {
+        // We join the server like any client: "false" means we start
+        if (!serverStarts) scheduleShot();
+    }
+
+    @Override
+    public void onAttack(int row, int col) {
+        if (gameOver) return;
+        boolean isHit = board.inBounds(row, col) && board.receiveAttack(row, col);
+        seat.onResult(isHit);
+        if (isHit && board.isSunk(board.shipIdAt(row, col))) {
+            sendShip(board.getShipMask(board.shipIdAt(row, col)), true);
+        }
+        if (!isHit) scheduleShot(); // A miss or a timeout pass gives us the turn
+    }
+
+    @Override
+    public void onResult(boolean isHit) {
+        if (lastShot < 0) return;
+        brain.recordShot(lastShot, isHit);
+        lastShot = -1;
+        if (!isHit) return;
+
+        // Same rule as Controller: a hit keeps the turn, enough hits win
+        if (brain.hitCount() >= Model.TOTAL_SHIP_CELLS) {
+            gameOver = true;
+            seat.onWin();
+            revealFleet();
+        } else {
+            scheduleShot();
+        }
+    }
+
+    @Override
+    public void onSunk(int row, int col, int size, boolean vertical) {
+        long ship = 0;
+        for (int k = 0; k < size; k++) {
+            int r = vertical ? row + k : row;
+            int c = vertical ? col : col + k;
+            if (!board.inBounds(r, c)) return;
+            ship |= BitBoard.bit(r, c);
+        }
+        brain.recordSunk(ship);
+    }
+
+    @Override
+    public void onShip(int row, int col, int size, boolean vertical) {
+    }
+
+    @Override
+    public void onSeat(int seat) {
+    }
+
+    @Override
+    public void onWin() {
+        gameOver = true;
+        revealFleet();
+    }
+
+    // Game over: show spectators where our ships were
+    private void revealFleet() {
+        for (int id = 1; id <= BotBrain.FLEET.length; id++) {
+            sendShip(board.getShipMask(id), false);
+        }
+    }
+
+    // A ship as SUNK or SHIP: top-left cell, size and direction
+    private void sendShip(long ship, boolean sunk) {
+        int first = Long.numberOfTrailingZeros(ship);
+        int size = Long.bitCount(ship);
+        boolean vertical = size > 1 && (ship & (1L << (first + Model.GRID_SIZE))) != 0;
+        if (sunk) {
+            seat.onSunk(first / Model.GRID_SIZE, first % Model.GRID_SIZE, size, vertical);
+        } else {
+            seat.onShip(first / Model.GRID_SIZE, first % Model.GRID_SIZE, size, vertical);
+        }
+    }
+
+    @Override
+    public void onRematchRequest() {
+        // Always up for another game
+        seat.onRematchAccept();
+        newGame();
+    }
+
+    @Override
+    public void onRematchAccept() {
+        // We never ask for a rematch
+    }
+
+    @Override
+    public void onChat(String message) {
+    }
+
+    @Override
+    public void onLobby() {
+    }
+
+    @Override
+    public void onMatched() {
+    }
+
+    @Override
+    public void onVariant(String spec) {
+        // Bots are only seated on standard matches
+    }
+
+    @Override
+    public void onPing(long token) {
+        // The server does not ping its own bot seats
+    }
+
+    @Override
+    public void onPong(long token) {
+    }
+
+    @Override
+    public void onSession(long token) {
+        // Bot seats are not resumable
+    }
+
+    @Override
+    public void onResume(long token, long received) {
+    }
+
+    @Override
+    public void onResumed(long received) {
+    }
+
+    @Override
+    public void onAway() {
+    }
+
+    @Override
+    public void onSnapshot(byte[] snapshot) {
+    }
+
+    @Override
+    public void onNoSession() {
+    }
+
+    @Override
+    public void onUnknown(String command) {
+        System.err.println("Unknown command for bot: " + command);
+    }
+}
@@ -0,0 +1,94 @@
+package proj;
+
+import java.util.Arrays;
+
+// int -> int hash table with linear probing, keyed by cell index (r * size + c)
+// so sparse boards and the panels that draw them cost memory per marked cell
+// rather than per cell. Values are never 0; get() returns 0 for a missing key.
+final class CellMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys = newKeys(16);
+    private int[] values = new int[16];
+    int count;
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+
+    int get(int key) {
+        for (int i = slot(key); ; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i] == key) return values[i];
+            if (keys[i] == EMPTY) return 0;
+        }
+    }
+
+    void put(int key, int value) {
+        if ((count + 1) * 2 > keys.length) grow();
+        int i = slot(key);
+        while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & (keys.length - 1);
+        if (keys[i] == EMPTY) count++;
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    // Returns the removed value, 0 if the key was absent
+    int remove(int key) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) return 0;
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+
+        // Shift later entries of the probe run back so lookups still find them
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        count--;
+        return removed;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = newKeys(oldKeys.length * 2);
+        values = new int[oldKeys.length * 2];
+        count = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    interface Visitor {
+        void visit(int key, int value);
+    }
+
+    // Every entry, in no particular order
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) visitor.visit(keys[i], values[i]);
+        }
+    }
+
+    void clear() {
+        keys = newKeys(16);
+        values = new int[16];
+        count = 0;
+    }
+}
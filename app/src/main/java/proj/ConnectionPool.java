@@ -0,0 +1,245 @@
+package proj;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Small fixed-size JDBC connection pool. Idle connections are validated before
+// they are handed out, broken ones are replaced, and when the server is down new
+// connection attempts back off exponentially instead of failing every caller
+// against a dead socket.
+public class ConnectionPool {
+    private static final long BORROW_TIMEOUT_MS = 5000;
+    private static final long VALIDATE_AFTER_IDLE_MS = 5000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long MIN_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+
+    private final BlockingQueue<PooledConnection> idle;
+    private final AtomicInteger open = new AtomicInteger();
+
+    // Reconnect backoff, guarded by this
+    private long nextAttemptAt = 0;
+    private long backoffMs = MIN_BACKOFF_MS;
+    private volatile boolean healthy = true;
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    // A pooled connection with its own prepared statement cache. Closing it
+    // returns it to the pool.
+    public class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+        private long lastUsed = System.currentTimeMillis();
+        private boolean broken = false;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        // Prepared once per connection, then reused
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement stmt = statements.get(sql);
+            if (stmt == null) {
+                stmt = connection.prepareStatement(sql);
+                statements.put(sql, stmt);
+            }
+            return stmt;
+        }
+
+        // Call after a failure that may have left the connection unusable
+        public void markBroken() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+
+        private void destroy() {
+            for (PreparedStatement stmt : statements.values()) {
+                try {
+                    stmt.close();
+                } catch (SQLException e) {
+                    // Connection is going away anyway
+                }
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Already closed
+            }
+        }
+    }
+
+    public PooledConnection borrow() throws SQLException {
+        long deadline = System.currentTimeMillis() + BORROW_TIMEOUT_MS;
+        while (true) {
+            if (closed) throw new SQLException("Connection pool is closed");
+            PooledConnection conn = idle.poll();
+            if (conn != null) {
+                if (isUsable(conn)) return conn;
+                discard(conn);
+                continue;
+            }
+
+            if (open.incrementAndGet() <= maxSize) {
+                try {
+                    PooledConnection fresh = new PooledConnection(connect());
+                    if (closed) {
+                        fresh.destroy(); // The catch below gives back the slot
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    return fresh;
+                } catch (SQLException e) {
+                    open.decrementAndGet();
+                    throw e;
+                }
+            }
+            open.decrementAndGet();
+
+            // Pool is full, wait for a connection to come back
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+            try {
+                conn = idle.poll(wait, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for a database connection");
+            }
+            if (conn != null) {
+                if (!closed && isUsable(conn)) return conn;
+                discard(conn);
+            }
+        }
+    }
+
+    private boolean isUsable(PooledConnection conn) {
+        // Only pay for a validation round trip when the connection sat idle for a while
+        if (System.currentTimeMillis() - conn.lastUsed < VALIDATE_AFTER_IDLE_MS) {
+            return true;
+        }
+        try {
+            return conn.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now < nextAttemptAt) {
+                throw new SQLException("Database unavailable, retrying in " + (nextAttemptAt - now) + " ms");
+            }
+        }
+        try {
+            Connection connection = DriverManager.getConnection(url, user, password);
+            synchronized (this) {
+                if (!healthy) {
+                    System.out.println("Database connection restored.");
+                }
+                healthy = true;
+                backoffMs = MIN_BACKOFF_MS;
+                nextAttemptAt = 0;
+            }
+            return connection;
+        } catch (SQLException e) {
+            synchronized (this) {
+                if (healthy) {
+                    System.err.println("Database connection failed: " + e.getMessage());
+                }
+                healthy = false;
+                nextAttemptAt = System.currentTimeMillis() + backoffMs;
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection conn) {
+        if (closed) {
+            // Borrowed before close(), nobody will take it from idle any more
+            discard(conn);
+            return;
+        }
+        if (conn.broken) {
+            // Keep it only if the server still answers
+            conn.broken = false;
+            if (!validate(conn)) {
+                discard(conn);
+                return;
+            }
+        }
+        conn.lastUsed = System.currentTimeMillis();
+        if (!idle.offer(conn)) {
+            discard(conn);
+            return;
+        }
+        // close() may have drained idle between the check above and the offer
+        if (closed && idle.remove(conn)) {
+            discard(conn);
+        }
+    }
+
+    private boolean validate(PooledConnection conn) {
+        try {
+            return conn.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection conn) {
+        open.decrementAndGet();
+        conn.destroy();
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public int getOpenConnections() {
+        return open.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    // Connections still borrowed are closed when they come back
+    public void close() {
+        closed = true;
+        PooledConnection conn;
+        while ((conn = idle.poll()) != null) {
+            discard(conn);
+        }
+    }
+}
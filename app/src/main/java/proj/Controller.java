@@ -0,0 +1,421 @@
+package proj;
+
+import java.awt.*;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+
+// Connects the Swing view and the socket to the GameEngine. Clicks, timer ticks
+// and network messages are posted to the match's GameLoop, which is the only
+// thread that runs the engine; engine events come back here as GameListener
+// calls and are handed to the EDT. Persistence of finished games lives here too.
+public class Controller implements GameListener {
+    private View view;
+    private GameSocket gameSocket;
+    private final GameLoop loop = new GameLoop("game-loop");
+    private GameEngine engine;
+    private Model model;
+    private GameStore store;
+    private ResultWriter resultWriter;
+    
+    public Controller() {
+        gameSocket = new GameSocket();
+        gameSocket.setController(this);
+        engine = new GameEngine(gameSocket, this);
+        model = engine.getModel();
+        loop.start();
+        
+        // MySQL when reachable, otherwise the embedded local store (see GameStore.open)
+        store = GameStore.open();
+        if (store != null) {
+            resultWriter = new ResultWriter(store);
+            // Results still queued when the window closes are written before exit
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                resultWriter.close();
+                store.close();
+            }, "result-writer-shutdown"));
+        }
+    }
+
+    public void setView(View view) {
+        this.view = view;
+        showConnectionDialog();
+    }
+    
+    public Model getModel() {
+        return model;
+    }
+    
+    private void showConnectionDialog() {
+        String[] options = {"Host Game", "Join Game"};
+        int choice = JOptionPane.showOptionDialog(null,
+            "Choose connection type:",
+            "Multiplayer Setup",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            options,
+            options[0]);
+        
+        // Exit if user clicks X or Cancel (choice is -1 when closed)
+        if (choice == -1 || choice == JOptionPane.CLOSED_OPTION) {
+            System.exit(0);
+        }
+        
+        if (choice == 0) {
+            // Host game
+            String portStr = JOptionPane.showInputDialog(null, "Enter port (default 12345):", "12345");
+            // Exit if user cancels the port dialog
+            if (portStr == null) {
+                System.exit(0);
+            }
+            int port = !portStr.isEmpty() ? Integer.parseInt(portStr) : 12345;
+            Variant variant = askVariant();
+            loop.post(() -> engine.setVariant(variant));
+            gameSocket.startServer(port);
+            view.updateStatus("Hosting on port " + port + ". Waiting for opponent...");
+        } else if (choice == 1) {
+            // Join game
+            String host = JOptionPane.showInputDialog(null, "Enter host IP address:", "localhost");
+            // Exit if user cancels the host dialog
+            if (host == null) {
+                System.exit(0);
+            }
+            String portStr = JOptionPane.showInputDialog(null, "Enter port:", "12345");
+            // Exit if user cancels the port dialog
+            if (portStr == null) {
+                System.exit(0);
+            }
+            int port = !portStr.isEmpty() ? Integer.parseInt(portStr) : 12345;
+            gameSocket.connectToServer(host.isEmpty() ? "localhost" : host, port);
+            view.updateStatus("Connecting to " + host + ":" + port + "...");
+        }
+    }
+
+    // The host picks the board size and fleet; the joining side is told when it connects
+    private Variant askVariant() {
+        String spec = Variant.STANDARD.toString();
+        while (true) {
+            spec = JOptionPane.showInputDialog(null,
+                "Board size and ships (size:ship,ship,...):", spec);
+            // Exit if user cancels the variant dialog
+            if (spec == null) {
+                System.exit(0);
+            }
+            try {
+                return Variant.parse(spec);
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(null, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    public void setPlayerName(String name) {
+        loop.post(() -> engine.setPlayerName(name));
+        view.setPlayerName(name);
+    }
+
+    // Input from the view
+    
+    public void selectShipType(int shipSize) {
+        loop.post(() -> engine.selectShipType(shipSize));
+    }
+
+    public void handleMyGridClick(int r, int c) {
+        loop.post(() -> engine.placeCell(r, c));
+    }
+
+    public void resetShipPlacement() {
+        loop.post(engine::resetShipPlacement);
+    }
+
+    public void clearAllShips() {
+        loop.post(engine::clearAllShips);
+    }
+
+    public void toggleReady() {
+        loop.post(engine::toggleReady);
+    }
+
+    public void handleOpponentGridClick(int r, int c) {
+        loop.post(() -> engine.attack(r, c));
+    }
+
+    public void updateTimer() {
+        loop.post(engine::tick);
+    }
+    
+    public void playAgain() {
+        loop.post(engine::playAgain);
+    }
+
+    public void showLeaderboard() {
+        if (store == null) {
+            JOptionPane.showMessageDialog(null, "Database not connected!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        JTable leaderboardTable = buildLeaderboardTable();
+        JScrollPane scrollPane = new JScrollPane(leaderboardTable);
+        scrollPane.setPreferredSize(new Dimension(600, 400));
+        
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.add(scrollPane, BorderLayout.CENTER);
+        
+        JButton viewGamesButton = new JButton("View Game History");
+        viewGamesButton.addActionListener(e -> showGameHistory());
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.add(viewGamesButton);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        JOptionPane.showMessageDialog(null, panel, "Leaderboard - Top Players", JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    private JTable buildLeaderboardTable() {
+        DefaultTableModel tableModel = new DefaultTableModel(
+                new String[]{"Rank", "Player", "Wins", "Losses", "Total Hits", "Win Rate %"}, 0);
+        
+        try {
+            int rank = 1;
+            long start = System.nanoTime();
+            java.util.List<PlayerStats> players = store.getLeaderboard();
+            Metrics.get().leaderboardQuery.recordSince(start);
+            for (PlayerStats player : players) {
+                tableModel.addRow(new Object[]{rank++, player.getName(), player.getWins(), player.getLosses(),
+                        player.getTotalHits(), String.format("%.1f", player.getWinRate())});
+            }
+        } catch (StoreException e) {
+            System.err.println("Error retrieving leaderboard.");
+            e.printStackTrace();
+            tableModel.addRow(new Object[]{"--", "Database not available", "--", "--", "--", "--"});
+        }
+        
+        JTable table = new JTable(tableModel);
+        table.setEnabled(false); // Make it read-only
+        return table;
+    }
+    
+    private void showGameHistory() {
+        if (store == null) {
+            JOptionPane.showMessageDialog(null, "Database not connected!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // Pages are fetched as the table is scrolled
+        GameHistoryTableModel historyModel = new GameHistoryTableModel((query, after, limit) -> {
+            long start = System.nanoTime();
+            java.util.List<GameRecord> page = store.getGamesPage(query, after, limit);
+            Metrics.get().historyQuery.recordSince(start);
+            return page;
+        }, GameHistoryQuery.all());
+        JTable gamesTable = new JTable(historyModel);
+        gamesTable.setEnabled(false);
+        JScrollPane scrollPane = new JScrollPane(gamesTable);
+        scrollPane.setPreferredSize(new Dimension(800, 400));
+        
+        // Filters: player name and a date range (yyyy-mm-dd, both optional)
+        JTextField playerField = new JTextField(12);
+        JTextField fromField = new JTextField(8);
+        JTextField toField = new JTextField(8);
+        JButton applyButton = new JButton("Filter");
+        applyButton.addActionListener(e -> {
+            try {
+                historyModel.setQuery(new GameHistoryQuery(playerField.getText(),
+                        parseDate(fromField.getText(), 0), parseDate(toField.getText(), 1)));
+            } catch (DateTimeParseException ex) {
+                JOptionPane.showMessageDialog(scrollPane, "Dates must be yyyy-mm-dd", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        
+        JPanel filterPanel = new JPanel();
+        filterPanel.add(new JLabel("Player:"));
+        filterPanel.add(playerField);
+        filterPanel.add(new JLabel("From:"));
+        filterPanel.add(fromField);
+        filterPanel.add(new JLabel("To:"));
+        filterPanel.add(toField);
+        filterPanel.add(applyButton);
+        
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.add(filterPanel, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        
+        JOptionPane.showMessageDialog(null, panel, "Game History", JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    // Start of the given day plus daysToAdd (so "to" includes the whole day), null when blank
+    private static Timestamp parseDate(String text, int daysToAdd) {
+        if (text == null || text.trim().isEmpty()) return null;
+        return Timestamp.valueOf(LocalDate.parse(text.trim()).plusDays(daysToAdd).atStartOfDay());
+    }
+    
+    // Socket callback methods
+    public void onOpponentConnected() {
+        loop.post(engine::onOpponentConnected);
+    }
+    
+    public void onWaitingInLobby() {
+        SwingUtilities.invokeLater(() -> view.updateStatus("Waiting in lobby for an opponent..."));
+    }
+    
+    public void onConnectionFailed() {
+        SwingUtilities.invokeLater(() -> view.updateStatus("Connection failed! Retrying..."));
+    }
+    
+    public void onConnectionLost() {
+        gameSocket.close();
+        SwingUtilities.invokeLater(() -> {
+            view.updateStatus("Connection lost! Game ended");
+            JOptionPane.showMessageDialog(null, "Connection to opponent lost!", "Connection Error", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    // The connection dropped but the session may still be resumed
+    public void onConnectionInterrupted() {
+        String status = gameSocket.isServer()
+                ? "Connection lost, waiting for opponent to reconnect..."
+                : "Connection lost, reconnecting...";
+        loop.post(() -> engine.suspend(status));
+    }
+    
+    public void onOpponentAway() {
+        loop.post(() -> engine.suspend("Opponent disconnected, waiting for them to reconnect..."));
+    }
+    
+    public void onResumed() {
+        loop.post(engine::onResumed);
+    }
+    
+    public void onSnapshot(byte[] snapshot) {
+        loop.post(() -> engine.onSnapshot(snapshot));
+    }
+    
+    public void onVariant(String spec) {
+        loop.post(() -> engine.onVariant(spec));
+    }
+    
+    public void onOpponentReady() {
+        loop.post(engine::onOpponentReady);
+    }
+    
+    public void onGameStart(boolean myTurnFirst) {
+        loop.post(() -> engine.onGameStart(myTurnFirst));
+    }
+    
+    public void onOpponentAttack(int row, int col) {
+        loop.post(() -> engine.onOpponentAttack(row, col));
+    }
+    
+    public void onAttackResult(boolean isHit) {
+        loop.post(() -> engine.onAttackResult(isHit));
+    }
+    
+    public void onOpponentShipSunk(int row, int col, int size, boolean vertical) {
+        loop.post(() -> engine.onOpponentShipSunk(row, col, size, vertical));
+    }
+    
+    public void onOpponentWins() {
+        loop.post(engine::onOpponentWins);
+    }
+    
+    public void onPlayerNameReceived(String name) {
+        System.out.println("Received opponent name: " + name + " (isServer: " + gameSocket.isServer() + ")");
+        loop.post(() -> engine.onPlayerNameReceived(name));
+    }
+    
+    public void onRematchRequest() {
+        loop.post(engine::onRematchRequest);
+    }
+    
+    public void onRematchAccept() {
+        loop.post(engine::onRematchAccept);
+    }
+    
+    // Engine events, raised on the loop thread and shown on the EDT
+    
+    @Override
+    public void onStatus(String message) {
+        SwingUtilities.invokeLater(() -> view.updateStatus(message));
+    }
+    
+    @Override
+    public void onCellChanged(boolean ownBoard, int row, int col) {
+        // The board is only read here on the loop thread; the EDT gets the cell's state
+        byte state = BoardPanel.stateOf(ownBoard ? model.myBoard : model.opponentBoard, row, col);
+        SwingUtilities.invokeLater(() -> view.setCell(ownBoard, row, col, state));
+    }
+    
+    @Override
+    public void onBoardsReset() {
+        SwingUtilities.invokeLater(view::resetForRematch);
+    }
+    
+    @Override
+    public void onShipCountsChanged(int[] leftBySize) {
+        SwingUtilities.invokeLater(() -> view.updateShipCount(leftBySize));
+    }
+    
+    @Override
+    public void onShipSunk(boolean ownShip, Ship ship, int[] afloatBySize) {
+        // Our own losses are already in the status line; track what is left of theirs
+        if (!ownShip) {
+            SwingUtilities.invokeLater(() -> view.updateEnemyFleet(afloatBySize));
+        }
+    }
+    
+    @Override
+    public void onVariantChanged(Variant variant) {
+        // New, empty boards; their cells follow as onCellChanged
+        SwingUtilities.invokeLater(() -> view.setVariant(variant));
+    }
+    
+    @Override
+    public void onReadyChanged(boolean ready) {
+        SwingUtilities.invokeLater(() -> view.setReadyButton(ready));
+    }
+    
+    @Override
+    public void onTurnChanged(boolean myTurn) {
+        SwingUtilities.invokeLater(() -> {
+            view.setTurnLabel(myTurn);
+            if (myTurn) {
+                view.startTimer();
+            } else {
+                view.stopTimer();
+            }
+        });
+    }
+    
+    @Override
+    public void onTimerChanged(int secondsLeft) {
+        SwingUtilities.invokeLater(() -> view.updateTimer(secondsLeft));
+    }
+    
+    @Override
+    public void onOpponentName(String name) {
+        SwingUtilities.invokeLater(() -> view.setOpponentName(name));
+    }
+    
+    @Override
+    public void onGameOver(boolean won, int myHits, int opponentHits) {
+        // Save to database (queued, written by the background result writer).
+        // Runs on the loop thread, so the model is safe to read here.
+        if (resultWriter != null) {
+            String opponentName = model.opponentName.isEmpty() ? "Opponent" : model.opponentName;
+            resultWriter.submit(new GameResult(model.playerName, opponentName,
+                                               won ? model.playerName : opponentName, myHits, opponentHits));
+        }
+        
+        // Update UI on EDT
+        SwingUtilities.invokeLater(() -> {
+            view.stopTimer();
+            if (won) {
+                view.showWinDialog();
+            } else {
+                view.showLossDialog();
+            }
+        });
+    }
+}
@@ -0,0 +1,313 @@
+package proj;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class Database implements GameStore {
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/";
+    private static final String DB_NAME = "battleship";
+    private static final String DB_USER = "root";
+    private static final String DB_PASSWORD = "";
+    
+    // Batched inserts are sent as one multi-row statement, and the database is
+    // created on first connect so pooled connections can point straight at it
+    private static final String DB_OPTIONS = "?rewriteBatchedStatements=true&createDatabaseIfNotExist=true";
+    
+    private static final String INSERT_GAME =
+            "INSERT INTO games (player1_name, player2_name, winner, player1_hits, player2_hits) VALUES (?, ?, ?, ?, ?)";
+    
+    // Insert-or-increment in one statement, relies on the unique key on players.name
+    private static final String UPSERT_PLAYER =
+            "INSERT INTO players (name, wins, losses, total_hits) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE wins = wins + VALUES(wins), losses = losses + VALUES(losses), " +
+            "total_hits = total_hits + VALUES(total_hits)";
+    
+    private static final String SELECT_TOP_PLAYERS =
+            "SELECT name, wins, losses, total_hits FROM players " +
+            "WHERE (wins + losses) > 0 " +
+            "ORDER BY wins DESC, win_rate DESC " +
+            "LIMIT ?";
+    
+    private static final String SELECT_PLAYER =
+            "SELECT name, wins, losses, total_hits FROM players WHERE name = ?";
+    
+    private static final int POOL_SIZE = 4;
+    private static final int LEADERBOARD_SIZE = 20;
+    private static final long LEADERBOARD_MAX_STALENESS_MS = 30_000;
+    
+    private ConnectionPool pool;
+    private volatile boolean schemaReady = false;
+    
+    private final LeaderboardCache leaderboard = new LeaderboardCache(new LeaderboardCache.Source() {
+        @Override
+        public List<PlayerStats> loadTop(int limit) throws SQLException {
+            return loadTopPlayers(limit);
+        }
+        
+        @Override
+        public PlayerStats loadPlayer(String name) throws SQLException {
+            return loadPlayerStats(name);
+        }
+    }, LEADERBOARD_SIZE, LEADERBOARD_MAX_STALENESS_MS);
+    
+    public Database() {
+        try {
+            Class.forName("com.mysql.jdbc.Driver");
+            pool = new ConnectionPool(DB_URL + DB_NAME + DB_OPTIONS, DB_USER, DB_PASSWORD, POOL_SIZE);
+            
+            // Connect once up front so a missing server is reported at startup;
+            // the pool keeps retrying later either way
+            getConnection().close();
+            System.out.println("Database connected successfully!");
+        } catch (ClassNotFoundException e) {
+            System.err.println("MySQL JDBC Driver not found. Leaderboard will not be available.");
+            System.err.println("To enable database: Add mysql-connector-java JAR to classpath");
+        } catch (SQLException e) {
+            System.err.println("Database connection failed. Leaderboard will be available once it reconnects.");
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public boolean isConnected() {
+        return pool != null && schemaReady && pool.isHealthy();
+    }
+    
+    // Borrow a pooled connection, creating the tables on the first successful connect
+    private ConnectionPool.PooledConnection getConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("Database not configured");
+        }
+        if (!schemaReady) {
+            ensureSchema();
+        }
+        return pool.borrow();
+    }
+    
+    private synchronized void ensureSchema() throws SQLException {
+        if (schemaReady) return;
+        
+        try (ConnectionPool.PooledConnection conn = pool.borrow()) {
+            createTables(conn.getConnection());
+        }
+        schemaReady = true;
+    }
+    
+    private void createTables(Connection connection) throws SQLException {
+        try {
+            SchemaMigrations.migrate(connection);
+            System.out.println("Tables created/verified successfully!");
+        } catch (SQLException e) {
+            System.err.println("Error creating tables.");
+            throw e;
+        }
+    }
+    
+    public void saveGameResult(String player1, String player2, String winner, int player1Hits, int player2Hits) {
+        if (saveGameResults(List.of(new GameResult(player1, player2, winner, player1Hits, player2Hits)))) {
+            System.out.println("Game result saved successfully!");
+        }
+    }
+    
+    // Save a batch of results in one transaction: all game rows in one batched
+    // insert, then one upsert per player with the summed deltas, batched as well.
+    // With rewriteBatchedStatements that is two statements and a commit per batch.
+    @Override
+    public boolean saveGameResults(List<GameResult> results) {
+        if (results.isEmpty()) {
+            return true;
+        }
+        
+        // wins, losses, hits per player across the batch. Sorted by name so every
+        // batch takes the players' row locks in the same order and two concurrent
+        // batches cannot deadlock on them.
+        Map<String, int[]> deltas = new TreeMap<>();
+        
+        long commitStartNanos = System.nanoTime();
+        if (!commitGameResults(results, deltas)) {
+            return false;
+        }
+        long commitEndNanos = System.nanoTime();
+        
+        // Keep the cached leaderboard in step with what was just committed
+        for (Map.Entry<String, int[]> entry : deltas.entrySet()) {
+            int[] d = entry.getValue();
+            leaderboard.apply(entry.getKey(), d[0], d[1], d[2], commitStartNanos, commitEndNanos);
+        }
+        return true;
+    }
+    
+    private boolean commitGameResults(List<GameResult> results, Map<String, int[]> deltas) {
+        try (ConnectionPool.PooledConnection conn = getConnection()) {
+            Connection connection = conn.getConnection();
+            PreparedStatement insertGameStmt = conn.prepare(INSERT_GAME);
+            PreparedStatement upsertPlayerStmt = conn.prepare(UPSERT_PLAYER);
+            
+            connection.setAutoCommit(false);
+            try {
+                for (GameResult result : results) {
+                    insertGameStmt.setString(1, result.getPlayer1());
+                    insertGameStmt.setString(2, result.getPlayer2());
+                    insertGameStmt.setString(3, result.getWinner());
+                    insertGameStmt.setInt(4, result.getPlayer1Hits());
+                    insertGameStmt.setInt(5, result.getPlayer2Hits());
+                    insertGameStmt.addBatch();
+                    
+                    addDelta(deltas, result.getPlayer1(), result.getWinner().equals(result.getPlayer1()), result.getPlayer1Hits());
+                    addDelta(deltas, result.getPlayer2(), result.getWinner().equals(result.getPlayer2()), result.getPlayer2Hits());
+                }
+                insertGameStmt.executeBatch();
+                
+                // Update player stats
+                for (Map.Entry<String, int[]> entry : deltas.entrySet()) {
+                    int[] d = entry.getValue();
+                    upsertPlayerStmt.setString(1, entry.getKey());
+                    upsertPlayerStmt.setInt(2, d[0]);
+                    upsertPlayerStmt.setInt(3, d[1]);
+                    upsertPlayerStmt.setInt(4, d[2]);
+                    upsertPlayerStmt.addBatch();
+                }
+                upsertPlayerStmt.executeBatch();
+                
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.markBroken();
+                insertGameStmt.clearBatch();
+                upsertPlayerStmt.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error saving game results.");
+            e.printStackTrace();
+            return false;
+        }
+    }
+    
+    private static void addDelta(Map<String, int[]> deltas, String playerName, boolean won, int hits) {
+        int[] d = deltas.computeIfAbsent(playerName, k -> new int[3]);
+        d[won ? 0 : 1]++;
+        d[2] += hits;
+    }
+    
+    // Top players, served from the in-memory cache
+    @Override
+    public List<PlayerStats> getLeaderboard() throws StoreException {
+        if (pool == null) {
+            throw new StoreException("Database not configured");
+        }
+        try {
+            return leaderboard.getTop();
+        } catch (SQLException e) {
+            throw new StoreException("Error retrieving leaderboard", e);
+        }
+    }
+    
+    private List<PlayerStats> loadTopPlayers(int limit) throws SQLException {
+        List<PlayerStats> players = new ArrayList<>();
+        try (ConnectionPool.PooledConnection conn = getConnection()) {
+            PreparedStatement stmt = conn.prepare(SELECT_TOP_PLAYERS);
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    players.add(readPlayerStats(rs));
+                }
+            }
+        }
+        return players;
+    }
+    
+    private PlayerStats loadPlayerStats(String name) throws SQLException {
+        try (ConnectionPool.PooledConnection conn = getConnection()) {
+            PreparedStatement stmt = conn.prepare(SELECT_PLAYER);
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? readPlayerStats(rs) : null;
+            }
+        }
+    }
+    
+    private static PlayerStats readPlayerStats(ResultSet rs) throws SQLException {
+        return new PlayerStats(rs.getString("name"), rs.getInt("wins"), rs.getInt("losses"), rs.getInt("total_hits"));
+    }
+    
+    // One page of game history, newest first. Pass the last game of the previous
+    // page as "after" to continue; the keyset condition on (game_date, id) keeps
+    // every page an index range scan, however deep into the history it is.
+    @Override
+    public List<GameRecord> getGamesPage(GameHistoryQuery query, GameRecord after, int limit) throws StoreException {
+        try {
+            return loadGamesPage(query, after, limit);
+        } catch (SQLException e) {
+            throw new StoreException("Error retrieving game history", e);
+        }
+    }
+    
+    private List<GameRecord> loadGamesPage(GameHistoryQuery query, GameRecord after, int limit) throws SQLException {
+        String sql = buildHistoryQuery(query, after != null);
+        List<GameRecord> games = new ArrayList<>(limit);
+        
+        try (ConnectionPool.PooledConnection conn = getConnection()) {
+            PreparedStatement stmt = conn.prepare(sql);
+            int branches = query.getPlayer() != null ? 2 : 1;
+            int i = 1;
+            for (int branch = 0; branch < branches; branch++) {
+                if (query.getPlayer() != null) stmt.setString(i++, query.getPlayer());
+                if (query.getFrom() != null) stmt.setTimestamp(i++, query.getFrom());
+                if (query.getTo() != null) stmt.setTimestamp(i++, query.getTo());
+                if (after != null) {
+                    stmt.setTimestamp(i++, after.getGameDate());
+                    stmt.setTimestamp(i++, after.getGameDate());
+                    stmt.setLong(i++, after.getId());
+                }
+                stmt.setInt(i++, limit);
+            }
+            if (branches > 1) stmt.setInt(i, limit);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    games.add(new GameRecord(rs.getLong("id"), rs.getString("player1_name"),
+                            rs.getString("player2_name"), rs.getString("winner"), rs.getInt("player1_hits"),
+                            rs.getInt("player2_hits"), rs.getTimestamp("game_date")));
+                }
+            }
+        }
+        return games;
+    }
+    
+    // A player filter is a UNION of one branch per seat, so each branch walks its
+    // own (playerN_name, game_date, id) index instead of an OR over two columns
+    private static String buildHistoryQuery(GameHistoryQuery query, boolean hasCursor) {
+        String columns = "SELECT id, player1_name, player2_name, winner, player1_hits, player2_hits, game_date FROM games";
+        String order = " ORDER BY game_date DESC, id DESC LIMIT ?";
+        
+        StringBuilder range = new StringBuilder();
+        if (query.getFrom() != null) range.append(" AND game_date >= ?");
+        if (query.getTo() != null) range.append(" AND game_date < ?");
+        if (hasCursor) range.append(" AND (game_date < ? OR (game_date = ? AND id < ?))");
+        
+        if (query.getPlayer() == null) {
+            String where = range.length() > 0 ? " WHERE" + range.substring(" AND".length()) : "";
+            return columns + where + order;
+        }
+        return "SELECT * FROM (" +
+                "(" + columns + " WHERE player1_name = ?" + range + order + ")" +
+                " UNION " +
+                "(" + columns + " WHERE player2_name = ?" + range + order + ")" +
+                ") history" + order;
+    }
+    
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.close();
+            System.out.println("Database connection closed.");
+        }
+    }
+}
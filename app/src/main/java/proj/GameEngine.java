@@ -0,0 +1,630 @@
+package proj;
+
+import java.util.Arrays;
+
+// The rules of one player's side of a match: ship placement, readiness, turns,
+// the turn timer, attack resolution and win detection. It works only on Model
+// and reports through GameListener and Opponent, so it runs without AWT;
+// Controller connects it to the Swing view and the socket.
+public class GameEngine {
+    public static final int TURN_SECONDS = 30;
+
+    private final Model model = new Model();
+    private final Opponent opponent;
+    private final GameListener listener;
+
+    public GameEngine(Opponent opponent, GameListener listener) {
+        this.opponent = opponent;
+        this.listener = listener;
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    public void setPlayerName(String name) {
+        model.playerName = name;
+    }
+
+    // Board size and fleet. The host picks it before the opponent connects and
+    // sends it on; the joining side takes whatever the host announces.
+    public void setVariant(Variant variant) {
+        if (variant.equals(model.variant)) return;
+        model.setVariant(variant);
+        model.resetAll();
+        listener.onVariantChanged(variant);
+        updateShipCounts();
+        listener.onReadyChanged(false);
+    }
+
+    public void onVariant(String spec) {
+        try {
+            setVariant(Variant.parse(spec));
+            listener.onStatus("Board is " + model.getSize() + "x" + model.getSize() + " - Place your ships");
+        } catch (IllegalArgumentException e) {
+            System.err.println("Bad variant from opponent: " + e.getMessage());
+            listener.onStatus("Opponent sent an unknown board setup: " + spec);
+        }
+    }
+
+    // Ship placement
+
+    public void selectShipType(int shipSize) {
+        // Check if we can still place this ship type
+        if (model.variant.countOf(shipSize) == 0) {
+            listener.onStatus("No " + getShipName(shipSize).toLowerCase() + " ships in this game!");
+            return;
+        }
+        if (model.shipsLeft(shipSize) <= 0) {
+            listener.onStatus("All " + getShipName(shipSize).toLowerCase() + " ships already placed!");
+            return;
+        }
+
+        // Only allow if we haven't already selected a ship being placed
+        if (model.currentShipSize != 0 && model.placedCount > 0) {
+            listener.onStatus("Finish placing current ship first!");
+            return;
+        }
+
+        // Reset ONLY current incomplete ship placement (not all ships!)
+        resetCurrentShipOnly();
+        model.currentShipSize = shipSize;
+        listener.onStatus("Selected " + getShipName(shipSize) + " ship - Place " + shipSize + " cells");
+    }
+
+    private void resetCurrentShipOnly() {
+        // Clear only the current ship being placed
+        for (int i = 0; i < model.placedCount; i++) {
+            int cell = model.currentShipCells[i];
+            int r = cell / model.getSize();
+            int c = cell % model.getSize();
+            model.myBoard.removeShip(r, c);
+            listener.onCellChanged(true, r, c);
+        }
+
+        model.reset();
+    }
+
+    static String getShipName(int size) {
+        if (size == Model.SMALL_SHIP_SIZE) return "Small";
+        if (size == Model.MEDIUM_SHIP_SIZE) return "Medium";
+        if (size == Model.LARGE_SHIP_SIZE) return "Large";
+        return size + "-cell";
+    }
+
+    // Next cell of the current ship at (r, c), if the placement rules allow it
+    public void placeCell(int r, int c) {
+        String error = model.placementError(r, c);
+        if (error != null) {
+            if (!error.isEmpty()) listener.onStatus(error);
+            return;
+        }
+
+        // Second click decides the direction
+        if (model.placedCount == 1) {
+            model.direction = r == model.currentShipCells[0] / model.getSize() ? "H" : "V";
+            model.directionLocked = true;
+        }
+
+        model.myBoard.placeShip(r, c, model.currentShipId());
+        model.currentShipCells[model.placedCount++] = model.index(r, c);
+        listener.onCellChanged(true, r, c);
+
+        if (model.placedCount == model.currentShipSize) {
+            // Ship fully placed
+            completeShipPlacement();
+        } else {
+            listener.onStatus("Placed " + model.placedCount + "/" + model.currentShipSize + " cells");
+        }
+    }
+
+    private void completeShipPlacement() {
+        // Save the ship
+        model.placedShips.add(new Ship(getShipName(model.currentShipSize), model.currentShipSize,
+                Arrays.copyOf(model.currentShipCells, model.placedCount)));
+
+        // Update ship count
+        model.shipsPlacedBySize[model.currentShipSize]++;
+
+        updateShipCounts();
+
+        // Reset for next ship
+        model.reset();
+
+        if (model.allShipsPlaced()) {
+            listener.onStatus("All ships placed! Click Ready when done");
+        } else {
+            listener.onStatus("Ship placed! Select next ship type");
+        }
+    }
+
+    private void updateShipCounts() {
+        int[] left = new int[model.shipsPlacedBySize.length];
+        for (int size : model.variant.getShipSizes()) {
+            left[size] = model.shipsLeft(size);
+        }
+        listener.onShipCountsChanged(left);
+    }
+
+    public void resetShipPlacement() {
+        // Clear only current incomplete ship
+        resetCurrentShipOnly();
+        listener.onStatus("Current ship placement cleared");
+    }
+
+    public void clearAllShips() {
+        // Only the occupied cells need repainting
+        int size = model.getSize();
+        int[] current = Arrays.copyOf(model.currentShipCells, model.placedCount);
+        Ship[] ships = model.placedShips.toArray(new Ship[0]);
+        model.resetAll();
+
+        for (int i : current) {
+            listener.onCellChanged(true, i / size, i % size);
+        }
+        for (Ship ship : ships) {
+            for (int i : ship.getCells()) {
+                listener.onCellChanged(true, i / size, i % size);
+            }
+        }
+        updateShipCounts();
+        listener.onReadyChanged(false);
+        listener.onStatus("All ships cleared");
+    }
+
+    // Readiness and the start of the game
+
+    public void toggleReady() {
+        if (!model.allShipsPlaced()) {
+            listener.onStatus("Place all ships before clicking Ready!");
+            return;
+        }
+
+        model.isReady = !model.isReady;
+        listener.onReadyChanged(model.isReady);
+
+        if (model.isReady) {
+            listener.onStatus("Ready! Waiting for opponent...");
+            model.gameStatus = "Ready - Waiting for opponent";
+
+            // Send player name when becoming ready (both players are listening now).
+            // Name, ready and a possible start go out together in one write.
+            opponent.beginBatch();
+            try {
+                opponent.sendPlayerName(model.playerName);
+                opponent.sendReady();
+
+                // Check if opponent was already ready
+                if (model.opponentReady && opponent.isServer()) {
+                    startAsServer();
+                }
+            } finally {
+                opponent.endBatch();
+            }
+        } else {
+            listener.onStatus("Not ready");
+            model.gameStatus = "Placing ships";
+        }
+    }
+
+    public void onOpponentConnected() {
+        // Standard games send nothing, so older clients can still join them
+        if (opponent.isServer() && !model.variant.isStandard()) {
+            opponent.sendVariant(model.variant);
+        }
+        listener.onStatus("Opponent connected! Place your ships");
+    }
+
+    public void onPlayerNameReceived(String name) {
+        model.opponentName = name;
+        listener.onOpponentName(name);
+        listener.onStatus("Playing against " + name + " - Place your ships");
+    }
+
+    public void onOpponentReady() {
+        listener.onStatus("Opponent is ready!");
+        model.opponentReady = true;
+
+        // If both players ready, start game
+        if (model.isReady && opponent.isServer()) {
+            startAsServer();
+        }
+    }
+
+    private void startAsServer() {
+        boolean serverStarts = Math.random() < 0.5;
+        opponent.sendStartGame(serverStarts);
+        onGameStart(serverStarts);
+    }
+
+    public void onGameStart(boolean myTurnFirst) {
+        model.gameStatus = "Game Started! " + (myTurnFirst ? "Your Turn" : "Opponent's Turn");
+        listener.onStatus(model.gameStatus);
+        model.isMyTurn = myTurnFirst;
+
+        // Reset hits for new game
+        model.myHits = 0;
+        model.opponentHits = 0;
+        model.gameOver = false;
+        model.gameStarted = true;
+        model.iStarted = myTurnFirst;
+        model.turnsPassed = 0;
+
+        if (myTurnFirst) {
+            startMyTurn();
+        } else {
+            listener.onTurnChanged(false);
+        }
+    }
+
+    private void startMyTurn() {
+        model.isMyTurn = true;
+        model.timeLeft = TURN_SECONDS;
+        listener.onTurnChanged(true);
+        listener.onTimerChanged(TURN_SECONDS);
+    }
+
+    // Our attacks
+
+    public void attack(int r, int c) {
+        if (!model.isReady) {
+            listener.onStatus("You must be ready first!");
+            return;
+        }
+
+        if (model.suspended) {
+            listener.onStatus("Reconnecting, hold on...");
+            return;
+        }
+
+        if (!model.isMyTurn) {
+            listener.onStatus("Wait for your turn!");
+            return;
+        }
+
+        if (model.waitingForResult) {
+            return; // Ignore clicks while waiting for result
+        }
+
+        // Check if already attacked
+        if (model.opponentBoard.isAttacked(r, c)) {
+            listener.onStatus("Already attacked this cell!");
+            return;
+        }
+
+        // Remember the attack until its result comes back
+        model.lastAttackRow = r;
+        model.lastAttackCol = c;
+        model.waitingForResult = true; // Block input
+
+        opponent.sendAttack(r, c);
+        listener.onStatus("Attacking...");
+    }
+
+    // Result of our last attack
+    public void onAttackResult(boolean isHit) {
+        int r = model.lastAttackRow;
+        int c = model.lastAttackCol;
+        if (r >= 0 && c >= 0) {
+            if (isHit) {
+                model.opponentBoard.markHit(r, c);
+                model.myHits++;
+                listener.onCellChanged(false, r, c);
+                listener.onStatus("HIT! You get another turn (Hits: " + model.myHits + "/" + model.variant.getTotalShipCells() + ")");
+
+                // Keep our turn
+                model.timeLeft = TURN_SECONDS;
+                listener.onTimerChanged(TURN_SECONDS);
+
+                // Check if we won
+                if (model.opponentBoard.hitCount() >= model.variant.getTotalShipCells()) {
+                    onWeWin();
+                }
+            } else {
+                model.opponentBoard.markMiss(r, c);
+                listener.onCellChanged(false, r, c);
+                listener.onStatus("MISS! Opponent's turn");
+                model.isMyTurn = false;
+                listener.onTurnChanged(false);
+            }
+        }
+
+        // Reset last attack coordinates
+        model.lastAttackRow = -1;
+        model.lastAttackCol = -1;
+        model.waitingForResult = false; // Unblock input
+    }
+
+    // One second of the turn timer
+    public void tick() {
+        // The clock stops while the connection is down
+        if (model.suspended) return;
+        model.timeLeft--;
+        listener.onTimerChanged(model.timeLeft);
+
+        if (model.timeLeft <= 0) {
+            // Time's up - pass the turn with the special timeout attack
+            if (model.isMyTurn) {
+                listener.onStatus("Time's up! Opponent's turn");
+                model.isMyTurn = false;
+                model.waitingForResult = false; // Reset if time runs out
+                opponent.sendAttack(-1, -1);
+            }
+            listener.onTurnChanged(false);
+            model.timeLeft = TURN_SECONDS;
+        }
+    }
+
+    // The opponent's attacks
+
+    public void onOpponentAttack(int row, int col) {
+        // Opponent ran out of time, now it's our turn
+        if (row == -1 && col == -1) {
+            model.turnsPassed++;
+            startMyTurn();
+            listener.onStatus("Opponent's time ran out! Your turn");
+            opponent.sendAttackResult(false); // Send miss
+            return;
+        }
+
+        // A cell off our board can only miss
+        boolean inBounds = model.myBoard.inBounds(row, col);
+        boolean isHit = inBounds && model.myBoard.receiveAttack(row, col);
+        if (inBounds) listener.onCellChanged(true, row, col);
+
+        if (isHit) {
+            model.opponentHits++;
+            listener.onStatus("Opponent HIT your ship! Their turn continues");
+
+            // The result and a possible SUNK go out in one write
+            opponent.beginBatch();
+            try {
+                opponent.sendAttackResult(true);
+                recordHitOnOwnShip(row, col);
+            } finally {
+                opponent.endBatch();
+            }
+
+            if (model.myShipsAfloat == 0) {
+                onOpponentWins();
+            }
+        } else {
+            model.turnsPassed++;
+            opponent.sendAttackResult(false);
+            startMyTurn();
+            listener.onStatus("Opponent missed! Your turn");
+        }
+    }
+
+    // The ship under (row, col) took a hit: count it, and announce the ship if it sank
+    private void recordHitOnOwnShip(int row, int col) {
+        int shipId = model.myBoard.shipIdAt(row, col);
+        if (shipId < 1 || shipId > model.placedShips.size()) return; // Attacked before placement finished
+        Ship ship = model.placedShips.get(shipId - 1);
+        if (ship.isSunk() || !ship.hit()) return;
+
+        model.myShipsAfloat--;
+        model.myAfloatBySize[ship.getSize()]--;
+        int size = model.getSize();
+        int first = ship.getFirstCell();
+        opponent.sendSunk(first / size, first % size, ship.getSize(), ship.isVertical(size));
+        listener.onShipSunk(true, ship, model.myAfloatBySize.clone());
+        listener.onStatus("Opponent sank your " + ship.getType() + " ship! (" + model.myShipsAfloat + " left)");
+    }
+
+    // The opponent says our last hit sank a ship starting at (row, col)
+    public void onOpponentShipSunk(int row, int col, int shipSize, boolean vertical) {
+        int endRow = vertical ? row + shipSize - 1 : row;
+        int endCol = vertical ? col : col + shipSize - 1;
+        if (shipSize < 1 || shipSize >= model.opponentAfloatBySize.length
+                || model.opponentAfloatBySize[shipSize] == 0
+                || !model.opponentBoard.inBounds(row, col) || !model.opponentBoard.inBounds(endRow, endCol)) {
+            System.err.println("Ignoring SUNK that does not match the fleet: " + row + ":" + col + ":" + shipSize);
+            return;
+        }
+
+        int[] cells = new int[shipSize];
+        for (int k = 0; k < shipSize; k++) {
+            cells[k] = vertical ? model.index(row + k, col) : model.index(row, col + k);
+        }
+        Ship ship = new Ship(getShipName(shipSize), shipSize, cells);
+        for (int k = 0; k < shipSize; k++) ship.hit();
+
+        model.opponentShipsAfloat--;
+        model.opponentAfloatBySize[shipSize]--;
+        listener.onShipSunk(false, ship, model.opponentAfloatBySize.clone());
+        if (model.opponentShipsAfloat > 0) {
+            listener.onStatus("You sank their " + ship.getType() + " ship! (" + model.opponentShipsAfloat + " left)");
+        }
+    }
+
+    // End of the game
+
+    private void onWeWin() {
+        opponent.sendWin();
+        endGame(true);
+    }
+
+    // The opponent sank our fleet, or told us so with WIN
+    public void onOpponentWins() {
+        endGame(false);
+    }
+
+    // Both our own sunk check and the opponent's WIN end the game; report it once
+    private void endGame(boolean won) {
+        if (model.gameOver) return;
+        model.gameOver = true;
+        model.isMyTurn = false;
+        revealFleet();
+        listener.onGameOver(won, model.myHits, model.opponentHits);
+    }
+
+    // The game is over, so our layout is no secret: spectators get to see it
+    private void revealFleet() {
+        int size = model.getSize();
+        opponent.beginBatch();
+        try {
+            for (Ship ship : model.placedShips) {
+                int first = ship.getFirstCell();
+                opponent.sendShip(first / size, first % size, ship.getSize(), ship.isVertical(size));
+            }
+        } finally {
+            opponent.endBatch();
+        }
+    }
+
+    // Dropped connections
+
+    // The connection is down and being re-established; no moves until it is back
+    public void suspend(String status) {
+        model.suspended = true;
+        listener.onStatus(status);
+    }
+
+    // The connection is back: tell the opponent what we know for certain
+    public void onResumed() {
+        try {
+            opponent.sendSnapshot(Snapshot.encode(model));
+            listener.onStatus("Reconnected, syncing the game...");
+        } catch (RuntimeException e) {
+            System.err.println("Cannot resync: " + e.getMessage());
+            abandonMatch("Game too large to resync after the connection drop");
+        }
+    }
+
+    // The two sides cannot be brought back in step: end the game on both rather
+    // than stay suspended. Nobody won, so no result is recorded.
+    private void abandonMatch(String reason) {
+        model.suspended = false;
+        model.gameOver = true;
+        model.isMyTurn = false;
+        listener.onTurnChanged(false);
+        listener.onStatus(reason + ", game abandoned");
+        opponent.endSession();
+    }
+
+    // The opponent's side of the game after a reconnect. Anything lost while
+    // the connection was down is taken from it: what our attacks did, their
+    // sunk ships, and whose turn it is. An attack still waiting for its result
+    // was lost and can simply be made again.
+    public void onSnapshot(byte[] data) {
+        Snapshot theirs;
+        try {
+            theirs = Snapshot.decode(data, model.getSize());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Bad snapshot from opponent: " + e.getMessage());
+            abandonMatch("Could not resync with the opponent");
+            return;
+        }
+        model.suspended = false;
+
+        if (!theirs.name.isEmpty() && !theirs.name.equals(model.opponentName)) {
+            onPlayerNameReceived(theirs.name);
+        }
+        if (theirs.has(Snapshot.READY) && !model.opponentReady && !model.gameStarted) {
+            onOpponentReady(); // The host may start the game from here
+        }
+        if (theirs.has(Snapshot.STARTED) && !model.gameStarted) {
+            onGameStart(!theirs.has(Snapshot.STARTER)); // Our START was lost
+        }
+
+        if (model.gameStarted && !model.gameOver) {
+            int size = model.getSize();
+            for (int cell : theirs.hits) {
+                if (model.opponentBoard.isHit(cell / size, cell % size)) continue;
+                model.opponentBoard.markHit(cell / size, cell % size);
+                listener.onCellChanged(false, cell / size, cell % size);
+            }
+            for (int cell : theirs.misses) {
+                if (model.opponentBoard.isAttacked(cell / size, cell % size)) continue;
+                model.opponentBoard.markMiss(cell / size, cell % size);
+                listener.onCellChanged(false, cell / size, cell % size);
+            }
+            model.myHits = model.opponentBoard.hitCount();
+            applySunkShips(theirs);
+
+            model.lastAttackRow = -1;
+            model.lastAttackCol = -1;
+            model.waitingForResult = false;
+
+            // Every answered miss or timeout, on either side, passed the turn once
+            boolean myTurn = model.iStarted == ((model.turnsPassed + theirs.turnsPassed) % 2 == 0);
+            if (model.opponentBoard.hitCount() >= model.variant.getTotalShipCells()) {
+                onWeWin();
+            } else if (model.myShipsAfloat == 0) {
+                onOpponentWins();
+            } else if (myTurn) {
+                startMyTurn();
+                listener.onStatus("Reconnected! Your turn");
+            } else {
+                model.isMyTurn = false;
+                listener.onTurnChanged(false);
+                listener.onStatus("Reconnected! Opponent's turn");
+            }
+        } else {
+            listener.onStatus("Reconnected!");
+        }
+
+        if (theirs.has(Snapshot.REMATCH) && model.gameOver && !model.opponentRematchRequested) {
+            onRematchRequest();
+        }
+    }
+
+    // SUNK messages that were lost: per size, skip as many of their sunk ships as we already know of
+    private void applySunkShips(Snapshot theirs) {
+        int size = model.getSize();
+        int[] known = new int[model.opponentAfloatBySize.length];
+        for (int s : model.variant.getShipSizes()) {
+            known[s] = model.variant.countOf(s) - model.opponentAfloatBySize[s];
+        }
+        for (int i = 0; i < theirs.getSunkCount(); i++) {
+            int first = theirs.sunkShips[2 * i];
+            int shipSize = theirs.sunkShips[2 * i + 1] >>> 1;
+            boolean vertical = (theirs.sunkShips[2 * i + 1] & 1) != 0;
+            if (shipSize < known.length && known[shipSize] > 0) {
+                known[shipSize]--;
+                continue;
+            }
+            onOpponentShipSunk(first / size, first % size, shipSize, vertical);
+        }
+    }
+
+    // Rematch
+
+    public void playAgain() {
+        model.rematchRequested = true;
+        opponent.beginBatch();
+        try {
+            opponent.sendRematchRequest();
+            listener.onStatus("Waiting for opponent to accept rematch...");
+
+            if (model.opponentRematchRequested) {
+                opponent.sendRematchAccept();
+                resetGameForRematch();
+            }
+        } finally {
+            opponent.endBatch();
+        }
+    }
+
+    public void onRematchRequest() {
+        model.opponentRematchRequested = true;
+        listener.onStatus(model.opponentName + " wants a rematch!");
+
+        if (model.rematchRequested) {
+            opponent.sendRematchAccept();
+            resetGameForRematch();
+        }
+    }
+
+    public void onRematchAccept() {
+        resetGameForRematch();
+    }
+
+    private void resetGameForRematch() {
+        model.resetForRematch();
+        listener.onBoardsReset();
+        updateShipCounts();
+        listener.onStatus("Rematch! Place your ships");
+    }
+}
@@ -0,0 +1,32 @@
+package proj;
+
+import java.sql.Timestamp;
+
+// Filters for the game history. Any field may be null to leave it out.
+public class GameHistoryQuery {
+    private final String player;
+    private final Timestamp from; // inclusive
+    private final Timestamp to;   // exclusive
+
+    public GameHistoryQuery(String player, Timestamp from, Timestamp to) {
+        this.player = player == null || player.trim().isEmpty() ? null : player.trim();
+        this.from = from;
+        this.to = to;
+    }
+
+    public static GameHistoryQuery all() {
+        return new GameHistoryQuery(null, null, null);
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    public Timestamp getFrom() {
+        return from;
+    }
+
+    public Timestamp getTo() {
+        return to;
+    }
+}
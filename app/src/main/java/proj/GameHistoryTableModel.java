@@ -0,0 +1,126 @@
+package proj;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+
+// Table model for the game history that loads one page at a time. When the table
+// asks for a row close to the end of what is loaded (i.e. the user scrolled that
+// far), the next page is fetched in the background and appended.
+public class GameHistoryTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"Game #", "Player 1", "Player 2", "Winner", "P1 Hits", "P2 Hits", "Date"};
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_ROWS = 10;
+
+    // Fetches the page after the given game (null for the first page)
+    public interface PageLoader {
+        List<GameRecord> load(GameHistoryQuery query, GameRecord after, int limit) throws StoreException;
+    }
+
+    private final PageLoader loader;
+    private GameHistoryQuery query;
+    private final List<GameRecord> rows = new ArrayList<>();
+    private boolean hasMore = true;
+    private boolean loading = false;
+    private String error = null;
+
+    // Bumped on every filter change so pages from an old query are discarded
+    private int generation = 0;
+
+    public GameHistoryTableModel(PageLoader loader, GameHistoryQuery query) {
+        this.loader = loader;
+        this.query = query;
+        loadMore();
+    }
+
+    public void setQuery(GameHistoryQuery query) {
+        this.query = query;
+        generation++;
+        rows.clear();
+        hasMore = true;
+        loading = false;
+        error = null;
+        fireTableDataChanged();
+        loadMore();
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    private void loadMore() {
+        if (loading || !hasMore) return;
+        loading = true;
+
+        final int requestGeneration = generation;
+        final GameHistoryQuery requestQuery = query;
+        final GameRecord after = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+
+        new SwingWorker<List<GameRecord>, Void>() {
+            @Override
+            protected List<GameRecord> doInBackground() throws Exception {
+                return loader.load(requestQuery, after, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                if (requestGeneration != generation) return;
+                loading = false;
+                try {
+                    List<GameRecord> page = get();
+                    hasMore = page.size() == PAGE_SIZE;
+                    rows.addAll(page);
+                    if (rows.isEmpty()) error = "No games found";
+                } catch (Exception e) {
+                    System.err.println("Error retrieving games.");
+                    e.printStackTrace();
+                    hasMore = false;
+                    error = "Database not available";
+                }
+                fireTableDataChanged();
+            }
+        }.execute();
+    }
+
+    @Override
+    public int getRowCount() {
+        // One placeholder row while the first page loads, or for an empty/failed result
+        return rows.isEmpty() ? 1 : rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        if (rows.isEmpty()) {
+            if (columnIndex == 1) return error != null ? error : "Loading...";
+            return "--";
+        }
+
+        // The table only asks for rows it is about to paint, so this is where scrolling shows up
+        if (rowIndex >= rows.size() - PREFETCH_ROWS) {
+            loadMore();
+        }
+
+        GameRecord game = rows.get(rowIndex);
+        switch (columnIndex) {
+            case 0: return game.getId();
+            case 1: return game.getPlayer1();
+            case 2: return game.getPlayer2();
+            case 3: return game.getWinner();
+            case 4: return game.getPlayer1Hits();
+            case 5: return game.getPlayer2Hits();
+            default: return game.getGameDate();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package proj;
+
+// Events from GameEngine. The Swing view subscribes through Controller; headless
+// users can ignore what they do not need. Cell events only say which cell
+// changed, the current state is read from the engine's boards.
+public interface GameListener {
+    void onStatus(String message);
+
+    // A cell of our own board (ownBoard) or of the opponent's board changed
+    void onCellChanged(boolean ownBoard, int row, int col);
+
+    // Both boards were cleared for a rematch
+    void onBoardsReset();
+
+    // Ships still to place, indexed by ship size
+    void onShipCountsChanged(int[] leftBySize);
+
+    // A ship of ours (ownShip) or of the opponent's sank. afloatBySize is that
+    // side's fleet still afloat, indexed by ship size.
+    void onShipSunk(boolean ownShip, Ship ship, int[] afloatBySize);
+
+    // New board size or fleet; the model's boards have been replaced
+    void onVariantChanged(Variant variant);
+
+    void onReadyChanged(boolean ready);
+
+    // Our turn starts the turn timer, the opponent's turn stops it
+    void onTurnChanged(boolean myTurn);
+
+    void onTimerChanged(int secondsLeft);
+
+    void onOpponentName(String name);
+
+    void onGameOver(boolean won, int myHits, int opponentHits);
+}
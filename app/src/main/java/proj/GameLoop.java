@@ -0,0 +1,69 @@
+package proj;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+// Single-owner event loop for one match. Any thread (socket reader, EDT, timer)
+// posts events into a lock-free mailbox; one loop thread runs them in order, so
+// the state they touch is only ever used by that thread and needs no locks.
+//
+// Posting is a queue offer plus an unpark, and the loop parks when the mailbox
+// is empty. The loop does not care what the events are, so a server can run
+// many matches on a few loops, one per core.
+public class GameLoop {
+    private final ConcurrentLinkedQueue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public GameLoop(String name) {
+        this(Threads.platformThreads(name));
+    }
+
+    public GameLoop(ThreadFactory threadFactory) {
+        thread = threadFactory.newThread(this::run);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    // Queue an event for the loop thread, callable from any thread
+    public void post(Runnable event) {
+        mailbox.offer(event);
+        LockSupport.unpark(thread);
+    }
+
+    public boolean isLoopThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    public int getPendingEvents() {
+        return mailbox.size();
+    }
+
+    // Finish the events already posted, then stop
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        while (true) {
+            Runnable event = mailbox.poll();
+            if (event == null) {
+                if (!running) return;
+                // An unpark between the poll and here leaves a permit, so nothing is missed
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                event.run();
+            } catch (RuntimeException e) {
+                // One bad event must not kill the match
+                System.err.println("Error in game loop: " + e);
+                e.printStackTrace();
+            }
+        }
+    }
+}
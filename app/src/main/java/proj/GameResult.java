@@ -0,0 +1,38 @@
+package proj;
+
+// One finished game as it is written to the games table
+public class GameResult {
+    private final String player1;
+    private final String player2;
+    private final String winner;
+    private final int player1Hits;
+    private final int player2Hits;
+
+    public GameResult(String player1, String player2, String winner, int player1Hits, int player2Hits) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.winner = winner;
+        this.player1Hits = player1Hits;
+        this.player2Hits = player2Hits;
+    }
+
+    public String getPlayer1() {
+        return player1;
+    }
+
+    public String getPlayer2() {
+        return player2;
+    }
+
+    public String getWinner() {
+        return winner;
+    }
+
+    public int getPlayer1Hits() {
+        return player1Hits;
+    }
+
+    public int getPlayer2Hits() {
+        return player2Hits;
+    }
+}
@@ -0,0 +1,1128 @@
+package proj;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+// Headless match server. One selector thread accepts any number of clients on a
+// single port, pairs them into matches and relays the protocol between the
+// two seats. Clients join it exactly like a hosted game (GameSocket.connectToServer);
+// the server plays the host role by deciding who starts.
+//
+// With bots enabled, a client left alone in the lobby for botAfterMs is matched
+// with a BotPlayer instead. A bot seat has no channel: its output is handed to
+// the bot in the flush, and the bot answers through the seat's handlers.
+//
+// Clients are not paired the moment they arrive. Every client is pinged on
+// connect, and the lobby is paired once per pairing window: waiting clients
+// are sorted by smoothed RTT and neighbours play each other, so fast
+// connections are not slowed down by a laggy opponent. Connected clients are
+// pinged every heartbeat interval and dropped once silent for the timeout
+// (see Heartbeat).
+//
+// Two human seats get a session token each when paired. A seat whose
+// connection drops is held for the resume grace window and its opponent told
+// to wait (AWAY); the player reconnects, presents the token with RESUME and
+// the new connection takes over the seat. Both seats then get RESUMED and
+// resync by exchanging snapshots through the relay. Bot matches end as before.
+// A new connection only enters the lobby once it has sent something other than
+// HELLO or PING (a resuming client sends RESUME before it answers our ping), or
+// after ADMIT_TIMEOUT_MS of silence, so a resume is never paired on arrival.
+//
+// A server started with a non-standard Variant announces it to both seats of
+// every match. Bots only know the standard board, so they are not offered then.
+//
+// With a spectator port, viewers connect there and send WATCH (newest match) or
+// WATCH:<id> (ids are logged as matches start). What the seats do is encoded
+// once per loop turn into a read-only batch appended to the match's log for the
+// current game; each spectator is only a cursor into that log, written from
+// shared duplicates. Ships stay hidden until the players reveal them after the
+// game. A spectator that falls too far behind is dropped, never the players.
+public class GameServer {
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final int MAX_READ_BUFFER_SIZE = 128 * 1024;
+    private static final long BOT_THINK_MS = 600;
+    private static final int MAX_SPECTATOR_LAG = 256; // Unsent batches before a spectator is dropped
+    private static final long PAIRING_WINDOW_MS = Long.getLong("battleship.pairing.window", 500);
+    private static final long RESUME_GRACE_MS = Long.getLong(GameSocket.GRACE_PROPERTY, 30_000);
+    private static final long ADMIT_TIMEOUT_MS = 2000;
+    private static final String WATCH = "WATCH";
+    private static final String NO_MATCH = "NO_MATCH";
+
+    private final int port;
+    private final long botAfterMs; // Negative when bots are disabled
+    private final Variant variant;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    // Clients connected but not yet paired, in arrival order
+    private final ArrayDeque<Client> lobby = new ArrayDeque<>();
+    private boolean pairingScheduled;
+    
+    // Seats of matches in play by session token, including seats held while away
+    private final HashMap<Long, Client> sessions = new HashMap<>();
+    private final SecureRandom tokens = new SecureRandom(); // Tokens are credentials: unpredictable
+    
+    // Clients with output queued during this loop turn, flushed once at its end
+    private final ArrayList<Client> pendingFlush = new ArrayList<>();
+    private final WriteStats writeStats = new WriteStats();
+    private final Metrics metrics = Metrics.get();
+    private int activeMatches = 0;
+    private int connectedClients = 0;
+    private int botMatches = 0;
+
+    // Spectating, off while spectatorPort is negative
+    private int spectatorPort = -1;
+    private ServerSocketChannel spectatorChannel;
+    private final HashMap<Integer, Match> matches = new HashMap<>();
+    private final ArrayList<Match> pendingPublish = new ArrayList<>();
+    private int nextMatchId = 1;
+    private int spectators = 0;
+
+    // Replay recording, off while null
+    private ReplayWriter replays;
+
+    // Delayed work for the loop thread (bot moves, lobby timeouts), soonest first
+    private final PriorityQueue<ScheduledTask> scheduled = new PriorityQueue<>();
+    private long scheduledCount = 0;
+
+    public GameServer(int port) {
+        this(port, -1);
+    }
+
+    public GameServer(int port, long botAfterMs) {
+        this(port, botAfterMs, Variant.STANDARD);
+    }
+
+    public GameServer(int port, long botAfterMs, Variant variant) {
+        this.port = port;
+        this.variant = variant;
+        this.botAfterMs = variant.isStandard() ? botAfterMs : -1;
+        if (botAfterMs >= 0 && !variant.isStandard()) {
+            System.out.println("Bots disabled: they only play the standard " + Variant.STANDARD + " game");
+        }
+    }
+
+    private static class ScheduledTask implements Comparable<ScheduledTask> {
+        final long dueNanos;
+        final long sequence; // Keeps tasks due at the same time in order
+        final Runnable task;
+
+        ScheduledTask(long dueNanos, long sequence, Runnable task) {
+            this.dueNanos = dueNanos;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            int byTime = Long.compare(dueNanos, other.dueNanos);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    // The spectator log of one game: read-only batches of binary frames, and
+    // the log of the game after it once a rematch starts
+    private static class GameLog {
+        final ArrayList<ByteBuffer> batches = new ArrayList<>();
+        GameLog next;
+    }
+
+    // Two seats playing each other, as far as spectators and replays are concerned
+    private class Match {
+        final int id;
+        final Client[] seats;
+        final WireProtocol encoder = new WireProtocol();
+        final ArrayList<Spectator> spectators = new ArrayList<>();
+        GameLog log = new GameLog();
+        ReplayRecorder recording; // The current game, kept until the next starts so the reveal is included
+        boolean publishQueued;
+        boolean ended;
+
+        Match(int id, Client a, Client b) {
+            this.id = id;
+            this.seats = new Client[]{a, b};
+            encoder.switchToBinary();
+            encoder.takeEncoded(); // Drop the BINARY line, each spectator gets its own
+        }
+    }
+
+    // A viewer on the spectator port. Until WATCH arrives it has no match.
+    private class Spectator {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(256);
+        Match match;
+        GameLog log;
+        int cursor; // Next batch of log to send
+        ByteBuffer partial; // Bytes still to write of the current batch
+        boolean closed;
+
+        Spectator(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    // One connected player. Each seat negotiates its own framing, so the relay
+    // decodes from one seat and re-encodes for the other.
+    private class Client implements ProtocolListener {
+        SocketChannel channel; // These four are replaced when a session resumes
+        WireProtocol protocol = new WireProtocol();
+        ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        Client opponent;
+        String name = "";
+        boolean ready;
+        boolean closed;
+        boolean flushQueued;
+        BotPlayer bot; // Set for bot seats, which have no channel
+        Match match; // Set while seated, when spectating or recording is on
+        int seat;
+        long attackSentNanos; // When this client's last attack was relayed, 0 once answered
+        Heartbeat heartbeat; // Null for bot seats
+        long sessionToken; // 0 outside a match between two players
+        boolean away; // Connection lost, seat held until awayUntilNanos
+        long awayUntilNanos;
+        boolean admitted; // Known not to be resuming: in the lobby, matched, or refused a resume
+        long quietMessages; // HELLO and PING received, which a resuming client sends too
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+            this.heartbeat = channel != null ? new Heartbeat(System.nanoTime()) : null;
+            protocol.setMetrics(metrics);
+        }
+
+        @Override
+        public void onHello() {
+            quietMessages++;
+            protocol.switchToBinary();
+            queueFlush(this);
+        }
+
+        @Override
+        public void onPlayerName(String playerName) {
+            name = playerName;
+            ReplayRecorder recording = recording(this);
+            if (recording != null) recording.name(seat, playerName);
+            WireProtocol spectators = spectatorEvent(this);
+            if (spectators != null) spectators.writePlayerName(playerName);
+            if (opponent != null) {
+                opponent.protocol.writePlayerName(playerName);
+                queueFlush(opponent);
+            }
+        }
+
+        @Override
+        public void onReady() {
+            ready = true;
+            if (opponent != null) {
+                opponent.protocol.writeReady();
+                queueFlush(opponent);
+            }
+            startGameIfReady(this);
+        }
+
+        @Override
+        public void onStart(boolean serverStarts) {
+            // The server decides who starts, clients never should
+        }
+
+        @Override
+        public void onAttack(int row, int col) {
+            WireProtocol spectators = spectatorEvent(this);
+            if (spectators != null) spectators.writeAttack(row, col);
+            ReplayRecorder recording = recording(this);
+            if (recording != null) recording.attack(row, col, System.currentTimeMillis());
+            if (row >= 0) attackSentNanos = System.nanoTime();
+            if (opponent != null) {
+                opponent.protocol.writeAttack(row, col);
+                queueFlush(opponent);
+            }
+        }
+
+        @Override
+        public void onResult(boolean isHit) {
+            WireProtocol spectators = spectatorEvent(this);
+            if (spectators != null) spectators.writeResult(isHit);
+            ReplayRecorder recording = recording(this);
+            if (recording != null) recording.result(isHit);
+            if (opponent != null) {
+                if (opponent.attackSentNanos != 0) {
+                    metrics.attackRoundTrip.recordSince(opponent.attackSentNanos);
+                    opponent.attackSentNanos = 0;
+                }
+                opponent.protocol.writeResult(isHit);
+                queueFlush(opponent);
+            }
+        }
+
+        @Override
+        public void onSunk(int row, int col, int size, boolean vertical) {
+            WireProtocol spectators = spectatorEvent(this);
+            if (spectators != null) spectators.writeSunk(row, col, size, vertical);
+            ReplayRecorder recording = recording(this);
+            if (recording != null) recording.sunk();
+            if (opponent != null) {
+                opponent.protocol.writeSunk(row, col, size, vertical);
+                queueFlush(opponent);
+            }
+        }
+
+        @Override
+        public void onShip(int row, int col, int size, boolean vertical) {
+            // The opponent has no use for it, only spectators see the revealed fleet
+            WireProtocol spectators = spectatorEvent(this);
+            if (spectators != null) spectators.writeShip(row, col, size, vertical);
+            ReplayRecorder recording = recording(this);
+            if (recording != null) recording.ship(seat, row, col, size, vertical);
+        }
+
+        @Override
+        public void onSeat(int seat) {
+            // Server-to-spectator only
+        }
+
+        @Override
+        public void onWin() {
+            WireProtocol spectators = spectatorEvent(this);
+            if (spectators != null) spectators.writeWin();
+            ReplayRecorder recording = recording(this);
+            if (recording != null) recording.win(seat);
+            if (opponent != null) {
+                opponent.protocol.writeWin();
+                queueFlush(opponent);
+            }
+        }
+
+        @Override
+        public void onRematchRequest() {
+            if (opponent != null) {
+                opponent.protocol.writeRematchRequest();
+                queueFlush(opponent);
+            }
+        }
+
+        @Override
+        public void onRematchAccept() {
+            if (opponent != null) {
+                opponent.protocol.writeRematchAccept();
+                queueFlush(opponent);
+            }
+        }
+
+        @Override
+        public void onChat(String message) {
+            if (opponent != null) {
+                opponent.protocol.writeChat(message);
+                queueFlush(opponent);
+            }
+        }
+
+        @Override
+        public void onLobby() {
+            // Server-to-client only
+        }
+
+        @Override
+        public void onMatched() {
+            // Server-to-client only
+        }
+
+        @Override
+        public void onVariant(String spec) {
+            // The server picks the variant, clients never should
+        }
+
+        @Override
+        public void onPing(long token) {
+            // Heartbeats end at the server, they are never relayed
+            quietMessages++;
+            if (heartbeat == null) return;
+            heartbeat.onPing(System.nanoTime());
+            protocol.writePong(token);
+            queueFlush(this);
+        }
+
+        @Override
+        public void onPong(long token) {
+            if (heartbeat == null) return;
+            long rtt = heartbeat.onPong(token, System.nanoTime());
+            if (rtt >= 0) metrics.pingRtt.record(rtt);
+        }
+
+        @Override
+        public void onSession(long token) {
+            // Server-to-client only
+        }
+
+        @Override
+        public void onResume(long token, long received) {
+            resume(this, token, received);
+        }
+
+        @Override
+        public void onResumed(long received) {
+            // Server-to-client only
+        }
+
+        @Override
+        public void onAway() {
+            // Server-to-client only
+        }
+
+        @Override
+        public void onSnapshot(byte[] snapshot) {
+            // Only the opponent needs the resync, spectators and the recording saw every move
+            if (opponent != null) {
+                opponent.protocol.writeSnapshot(snapshot);
+                queueFlush(opponent);
+            }
+        }
+
+        @Override
+        public void onNoSession() {
+            // The player gave up the session (the game could not be resynced): end the match
+            disconnect(this);
+        }
+
+        @Override
+        public void onUnknown(String command) {
+            System.err.println("Unknown command from client: " + command);
+        }
+    }
+
+    public void run() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        if (spectatorPort >= 0) {
+            spectatorChannel = ServerSocketChannel.open();
+            spectatorChannel.bind(new InetSocketAddress(spectatorPort));
+            spectatorChannel.configureBlocking(false);
+            spectatorChannel.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Spectators on port " + spectatorPort);
+        }
+        running = true;
+        schedule(heartbeatTickMs(), this::heartbeatTick);
+        System.out.println("Game server listening on port " + port);
+
+        while (running) {
+            long waitMs = runDueTasks();
+            if (waitMs == 0) {
+                selector.selectNow();
+            } else {
+                selector.select(waitMs < 0 ? 0 : waitMs);
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) continue;
+
+                try {
+                    if (key.isAcceptable()) {
+                        if (key.channel() == spectatorChannel) acceptSpectators();
+                        else accept();
+                    } else if (key.attachment() instanceof Spectator) {
+                        Spectator spectator = (Spectator) key.attachment();
+                        if (key.isReadable()) readSpectator(spectator);
+                        if (key.isValid() && key.isWritable()) flushSpectator(spectator);
+                    } else {
+                        Client client = (Client) key.attachment();
+                        if (key.isReadable()) read(key, client);
+                        if (key.isValid() && key.isWritable()) write(key, client);
+                    }
+                } catch (IOException e) {
+                    Object attachment = key.attachment();
+                    if (attachment instanceof Client) {
+                        connectionLost((Client) attachment);
+                    } else if (attachment instanceof Spectator) {
+                        dropSpectator((Spectator) attachment);
+                    } else {
+                        System.err.println("Accept error: " + e.getMessage());
+                    }
+                }
+            }
+            runDueTasks();
+            flushPending();
+        }
+        shutdown();
+    }
+
+    // Run a task on the loop thread once delayMs has passed
+    public void schedule(long delayMs, Runnable task) {
+        scheduled.add(new ScheduledTask(System.nanoTime() + delayMs * 1_000_000L, scheduledCount++, task));
+    }
+
+    // Run every task that is due. Returns how long the selector may block: 0 if
+    // output is waiting to be flushed, -1 if nothing is scheduled, otherwise
+    // the milliseconds until the next task.
+    private long runDueTasks() {
+        long now = System.nanoTime();
+        ScheduledTask next;
+        while ((next = scheduled.peek()) != null && next.dueNanos <= now) {
+            scheduled.poll();
+            next.task.run();
+        }
+        if (!pendingFlush.isEmpty() || !pendingPublish.isEmpty()) return 0;
+        if (next == null) return -1;
+        return Math.max(1, (next.dueNanos - now + 999_999) / 1_000_000);
+    }
+
+    public void stop() {
+        running = false;
+        if (selector != null) selector.wakeup();
+    }
+
+    public int getActiveMatches() {
+        return activeMatches;
+    }
+
+    public int getConnectedClients() {
+        return connectedClients;
+    }
+
+    public int getBotMatches() {
+        return botMatches;
+    }
+
+    public int getSpectators() {
+        return spectators;
+    }
+
+    // Accept spectators on this port too; call before run()
+    public void setSpectatorPort(int spectatorPort) {
+        this.spectatorPort = spectatorPort;
+    }
+
+    // Record every game to this writer; call before run()
+    public void setReplayWriter(ReplayWriter replays) {
+        this.replays = replays;
+    }
+
+    public WriteStats getWriteStats() {
+        return writeStats;
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Client client = new Client(channel);
+            channel.register(selector, SelectionKey.OP_READ, client);
+            connectedClients++;
+            metrics.connectionOpened();
+
+            // Offer binary framing to every client, older ones just ignore it.
+            // The first ping's answer gives the RTT the pairing sorts by, and
+            // admits the client to the lobby.
+            client.protocol.writeHello();
+            long now = System.nanoTime();
+            if (client.heartbeat.pingDue(now)) client.protocol.writePing(now);
+            queueFlush(client);
+            schedule(ADMIT_TIMEOUT_MS, () -> admit(client));
+        }
+    }
+
+    // The connection is a new player, not a resume: it waits in the lobby
+    private void admit(Client client) {
+        if (client.admitted || client.closed) return;
+        client.admitted = true;
+        joinLobby(client);
+    }
+
+    private void joinLobby(Client client) {
+        lobby.add(client);
+        client.protocol.writeLobby();
+        queueFlush(client);
+        if (botAfterMs >= 0) {
+            schedule(botAfterMs, () -> matchWithBot(client));
+        }
+        if (!pairingScheduled) {
+            pairingScheduled = true;
+            schedule(PAIRING_WINDOW_MS, this::pairLobby);
+        }
+    }
+
+    // Pair everyone waiting, closest RTTs together. With an odd number the
+    // latest arrival waits for the next window.
+    private void pairLobby() {
+        pairingScheduled = false;
+        lobby.removeIf(client -> client.closed);
+        if (lobby.size() < 2) return;
+
+        ArrayList<Client> waiting = new ArrayList<>(lobby);
+        lobby.clear();
+        if (waiting.size() % 2 == 1) lobby.add(waiting.remove(waiting.size() - 1));
+        waiting.sort(Comparator.comparingDouble(GameServer::pairingRtt)); // Stable: equal RTTs keep arrival order
+        for (int i = 0; i + 1 < waiting.size(); i += 2) {
+            startMatch(waiting.get(i), waiting.get(i + 1));
+        }
+    }
+
+    // Clients that have not answered a ping yet sort last
+    private static double pairingRtt(Client client) {
+        return client.heartbeat.hasRtt() ? client.heartbeat.getSrttMillis() : Double.MAX_VALUE;
+    }
+
+    // Ping connected clients that are due, and drop the ones that went silent
+    private void heartbeatTick() {
+        long now = System.nanoTime();
+        ArrayList<Client> silent = null;
+        for (SelectionKey key : selector.keys()) {
+            if (!(key.attachment() instanceof Client)) continue;
+            Client client = (Client) key.attachment();
+            if (client.closed || client.away) continue;
+            if (client.heartbeat.isDead(now)) {
+                if (silent == null) silent = new ArrayList<>();
+                silent.add(client);
+            } else if (client.heartbeat.pingDue(now)) {
+                client.protocol.writePing(now);
+                queueFlush(client);
+            }
+        }
+        if (silent != null) {
+            for (Client client : silent) {
+                System.out.println("No response from " + describe(client) + " for "
+                        + client.heartbeat.getSilentMillis(now) + " ms, disconnecting");
+                connectionLost(client);
+            }
+        }
+        schedule(heartbeatTickMs(), this::heartbeatTick);
+    }
+
+    private static long heartbeatTickMs() {
+        return Math.max(1, Heartbeat.INTERVAL_MS / 2);
+    }
+
+    private static String describe(Client client) {
+        String name = client.name.isEmpty() ? "client" : client.name;
+        return client.heartbeat != null ? name + " (" + client.heartbeat + ")" : name;
+    }
+
+    private void startMatch(Client a, Client b) {
+        a.opponent = b;
+        b.opponent = a;
+        activeMatches++;
+        if (spectatorPort >= 0 || replays != null) {
+            Match match = new Match(nextMatchId++, a, b);
+            a.match = match;
+            a.seat = 0;
+            b.match = match;
+            b.seat = 1;
+            matches.put(match.id, match);
+            System.out.println("Match " + match.id + " started: " + describe(a) + " vs " + describe(b));
+        }
+        a.protocol.writeMatched();
+        b.protocol.writeMatched();
+        if (a.bot == null && b.bot == null) {
+            openSession(a);
+            openSession(b);
+        }
+        if (!variant.isStandard()) {
+            a.protocol.writeVariant(variant.toString());
+            b.protocol.writeVariant(variant.toString());
+        }
+
+        // Names and readiness sent while waiting in the lobby are replayed to the new opponent
+        if (!a.name.isEmpty()) b.protocol.writePlayerName(a.name);
+        if (!b.name.isEmpty()) a.protocol.writePlayerName(b.name);
+        if (a.ready) b.protocol.writeReady();
+        if (b.ready) a.protocol.writeReady();
+        queueFlush(a);
+        queueFlush(b);
+        startGameIfReady(a);
+    }
+
+    private void openSession(Client client) {
+        long token;
+        do {
+            token = tokens.nextLong();
+        } while (token == 0 || sessions.containsKey(token));
+        client.sessionToken = token;
+        sessions.put(token, client);
+        client.protocol.writeSession(token);
+    }
+
+    // Nobody else turned up: give the client a computer opponent
+    private void matchWithBot(Client client) {
+        if (client.closed || client.opponent != null || !lobby.remove(client)) return;
+
+        Client seat = new Client(null);
+        seat.protocol.switchToBinary(); // Cheapest framing to decode, and the bot reads it like any peer
+        seat.bot = new BotPlayer(seat, this::schedule, BOT_THINK_MS, BotPlayer.DEFAULT_NAME, System.nanoTime());
+        seat.bot.start();
+        botMatches++;
+        startMatch(client, seat);
+    }
+
+    private void read(SelectionKey key, Client client) throws IOException {
+        int n = client.channel.read(client.in);
+        if (n < 0) {
+            connectionLost(client);
+            return;
+        }
+        client.heartbeat.heard(System.nanoTime());
+
+        ByteBuffer in = client.in;
+        in.flip();
+        try {
+            client.protocol.decode(in, client);
+        } catch (RuntimeException e) {
+            System.err.println("Malformed message from client, disconnecting: " + e);
+            disconnect(client);
+            return;
+        }
+        if (client.closed) {
+            // Resumed a held seat: the seat reads on from this buffer
+            if (key.attachment() != client) in.compact();
+            return;
+        }
+        in.compact();
+        if (!client.admitted && client.protocol.getMessagesIn() > client.quietMessages) admit(client);
+
+        // Frames can be up to 64 KiB, grow once a single message fills the buffer
+        if (!in.hasRemaining()) {
+            if (in.capacity() >= MAX_READ_BUFFER_SIZE) {
+                System.err.println("Message too long from client, disconnecting");
+                disconnect(client);
+                return;
+            }
+            ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+            in.flip();
+            bigger.put(in);
+            client.in = bigger;
+        }
+    }
+
+    private void startGameIfReady(Client client) {
+        Client opponent = client.opponent;
+        if (opponent == null || !client.ready || !opponent.ready) return;
+
+        // Clients only see the joining side of START, so "false" means "you start"
+        boolean clientStarts = Math.random() < 0.5;
+        client.protocol.writeStart(!clientStarts);
+        opponent.protocol.writeStart(clientStarts);
+        queueFlush(client);
+        queueFlush(opponent);
+        if (client.match != null) {
+            Client starter = clientStarts ? client : opponent;
+            if (spectatorPort >= 0) startGameLog(client.match, starter);
+            if (replays != null) startRecording(client.match, starter);
+        }
+
+        // Both must ready up again after a rematch
+        client.ready = false;
+        opponent.ready = false;
+    }
+
+    // Messages are only encoded while handling events; all of a client's
+    // output for this loop turn goes out in one write at the end of the turn
+    private void queueFlush(Client client) {
+        if (client.flushQueued || client.closed || client.away) return;
+        client.flushQueued = true;
+        pendingFlush.add(client);
+    }
+
+    private void flushPending() {
+        for (int i = 0; i < pendingPublish.size(); i++) {
+            publish(pendingPublish.get(i));
+        }
+        pendingPublish.clear();
+
+        for (int i = 0; i < pendingFlush.size(); i++) {
+            Client client = pendingFlush.get(i);
+            client.flushQueued = false;
+            flush(client);
+        }
+        pendingFlush.clear();
+    }
+
+    // Write what the client's protocol has encoded, waiting for OP_WRITE if the socket is full
+    private void flush(Client client) {
+        if (client.closed || client.away || !client.protocol.hasPending()) return;
+
+        if (client.bot != null) {
+            // Hand the bytes over before decoding, the bot's answers may write to this seat again
+            client.protocol.takeQueuedMessages();
+            client.bot.receive(client.protocol.beginWrite());
+            client.protocol.finishWrite();
+            client.bot.processReceived();
+            return;
+        }
+
+        int messages = client.protocol.takeQueuedMessages();
+        if (messages > 0) writeStats.recordFlush(messages);
+
+        ByteBuffer pending = client.protocol.beginWrite();
+        try {
+            int written = client.channel.write(pending);
+            writeStats.recordWrite(written);
+        } catch (IOException e) {
+            client.protocol.finishWrite();
+            connectionLost(client);
+            return;
+        }
+        boolean remaining = pending.hasRemaining();
+        client.protocol.finishWrite();
+
+        SelectionKey key = client.channel.keyFor(selector);
+        if (key != null && key.isValid()) {
+            key.interestOps(remaining
+                    ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                    : SelectionKey.OP_READ);
+        }
+    }
+
+    private void write(SelectionKey key, Client client) {
+        flush(client);
+    }
+
+    private void disconnect(Client client) {
+        if (client.closed) return;
+        client.closed = true;
+        if (client.sessionToken != 0) sessions.remove(client.sessionToken);
+        if (client.bot != null) {
+            client.bot.stop();
+            botMatches--;
+        } else if (!client.away) {
+            closeChannel(client);
+        }
+
+        abandonMatch(client);
+    }
+
+    // The match cannot continue without both seats: end it and the other seat
+    private void abandonMatch(Client client) {
+        Client opponent = client.opponent;
+        if (client.match != null) {
+            endMatch(client.match);
+        }
+        if (opponent != null) {
+            activeMatches--;
+            client.opponent = null;
+            opponent.opponent = null;
+            // A player still connected is told not to wait for a resume
+            if (opponent.sessionToken != 0 && !opponent.away && !opponent.closed) {
+                opponent.protocol.writeNoSession();
+                flush(opponent);
+            }
+            disconnect(opponent);
+        }
+    }
+
+    private void closeChannel(Client client) {
+        connectedClients--;
+        metrics.connectionClosed();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    // Sessions
+
+    // A player's connection failed. In a match with a session the seat is held
+    // for the grace window and the opponent asked to wait; otherwise the match ends.
+    private void connectionLost(Client client) {
+        if (client.closed || client.away) return;
+        if (client.sessionToken == 0 || client.opponent == null) {
+            disconnect(client);
+            return;
+        }
+        client.away = true;
+        client.awayUntilNanos = System.nanoTime() + RESUME_GRACE_MS * 1_000_000L;
+        closeChannel(client);
+        System.out.println(describe(client) + " lost the connection, holding the seat for "
+                + RESUME_GRACE_MS / 1000 + " s");
+
+        Client opponent = client.opponent;
+        opponent.protocol.writeAway();
+        queueFlush(opponent);
+        schedule(RESUME_GRACE_MS, () -> {
+            // Not if the seat was resumed, or lost again later, in the meantime
+            if (client.away && System.nanoTime() - client.awayUntilNanos >= 0) {
+                System.out.println(describe(client) + " did not come back, ending the match");
+                disconnect(client);
+            }
+        });
+    }
+
+    // A fresh connection presents a session token: it takes over the held seat
+    private void resume(Client fresh, long token, long received) {
+        Client seat = sessions.get(token);
+        lobby.remove(fresh);
+        fresh.admitted = true; // Resumed or refused, it never joins the lobby now
+        if (fresh.opponent != null) {
+            // Matched as a new player before it sent RESUME (clients send RESUME
+            // first, so only a misbehaving one gets here): that match ends, or
+            // its frames would reach the resumed seat
+            if (fresh.sessionToken != 0) sessions.remove(fresh.sessionToken);
+            fresh.sessionToken = 0;
+            abandonMatch(fresh);
+            fresh.match = null;
+        }
+        if (seat == null || !seat.away || seat.closed || fresh.channel == null) {
+            // The client closes on NO_SESSION, which ends this connection too
+            fresh.protocol.writeNoSession();
+            queueFlush(fresh);
+            return;
+        }
+
+        WireProtocol lost = seat.protocol;
+        SelectionKey key = fresh.channel.keyFor(selector);
+        key.attach(seat);
+        seat.channel = fresh.channel;
+        seat.protocol = fresh.protocol;
+        seat.in = fresh.in;
+        seat.heartbeat = fresh.heartbeat;
+        seat.away = false;
+        fresh.closed = true; // Its connection is counted as the seat's now
+        System.out.println(describe(seat) + " resumed, " + Math.max(0, lost.getMessagesOut() - received)
+                + " message(s) to it were lost");
+
+        seat.protocol.writeResumed(lost.getMessagesIn());
+        queueFlush(seat);
+        Client opponent = seat.opponent;
+        if (opponent != null) {
+            opponent.protocol.writeResumed(0);
+            queueFlush(opponent);
+        }
+    }
+
+    // Spectators
+
+    // The match encoder, with the client's seat already written, for an event
+    // spectators should see; null when nobody can be watching
+    private WireProtocol spectatorEvent(Client client) {
+        Match match = client.match;
+        if (match == null || match.ended || spectatorPort < 0) return null;
+        match.encoder.writeSeat(client.seat);
+        queuePublish(match);
+        return match.encoder;
+    }
+
+    private void queuePublish(Match match) {
+        if (match.publishQueued) return;
+        match.publishQueued = true;
+        pendingPublish.add(match);
+    }
+
+    // A new game: late joiners start from here, with the variant and both names
+    private void startGameLog(Match match, Client starter) {
+        sealBatch(match);
+        GameLog fresh = new GameLog();
+        match.log.next = fresh;
+        match.log = fresh;
+
+        WireProtocol encoder = match.encoder;
+        if (!variant.isStandard()) encoder.writeVariant(variant.toString());
+        for (Client seat : match.seats) {
+            encoder.writeSeat(seat.seat);
+            encoder.writePlayerName(seat.name);
+        }
+        encoder.writeSeat(starter.seat);
+        encoder.writeStart(true);
+        queuePublish(match);
+    }
+
+    // Everything encoded for the match this turn becomes one shared batch
+    private void sealBatch(Match match) {
+        if (match.encoder.hasPending()) {
+            match.log.batches.add(match.encoder.takeEncoded());
+        }
+    }
+
+    private void publish(Match match) {
+        match.publishQueued = false;
+        sealBatch(match);
+        // Backwards, flushing may drop a spectator from the list
+        for (int i = match.spectators.size() - 1; i >= 0; i--) {
+            flushSpectator(match.spectators.get(i));
+        }
+    }
+
+    private void endMatch(Match match) {
+        if (match.ended) return;
+        match.ended = true;
+        matches.remove(match.id);
+        saveRecording(match);
+        queuePublish(match); // Spectators get the rest, then are closed
+    }
+
+    // Replays
+
+    // The recording of the client's current game, null when not recording
+    private ReplayRecorder recording(Client client) {
+        Match match = client.match;
+        return match == null || match.ended ? null : match.recording;
+    }
+
+    private void startRecording(Match match, Client starter) {
+        saveRecording(match);
+        match.recording = new ReplayRecorder(variant);
+        match.recording.start(match.seats[0].name, match.seats[1].name, starter.seat, System.currentTimeMillis());
+    }
+
+    // Games abandoned before the first shot are not worth keeping
+    private void saveRecording(Match match) {
+        ReplayRecorder recording = match.recording;
+        match.recording = null;
+        if (recording != null && recording.hasMoves()) {
+            replays.submit(recording.toRecord());
+        }
+    }
+
+    private void acceptSpectators() throws IOException {
+        SocketChannel channel;
+        while ((channel = spectatorChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ, new Spectator(channel));
+            spectators++;
+        }
+    }
+
+    // Wait for the WATCH line; anything after it is ignored
+    private void readSpectator(Spectator spectator) throws IOException {
+        ByteBuffer in = spectator.in;
+        if (spectator.match != null || !in.hasRemaining()) in.clear();
+        if (spectator.channel.read(in) < 0) {
+            dropSpectator(spectator);
+            return;
+        }
+        if (spectator.match != null) return;
+
+        int newline = -1;
+        for (int i = 0; i < in.position(); i++) {
+            if (in.get(i) == '\n') {
+                newline = i;
+                break;
+            }
+        }
+        if (newline < 0) return;
+        String line = new String(in.array(), 0, newline, StandardCharsets.UTF_8).trim();
+
+        Match match = null;
+        if (line.equals(WATCH)) {
+            for (Match m : matches.values()) {
+                if (match == null || m.id > match.id) match = m;
+            }
+        } else if (line.startsWith(WATCH + ":")) {
+            try {
+                match = matches.get(Integer.parseInt(line.substring(WATCH.length() + 1).trim()));
+            } catch (NumberFormatException e) {
+                // Treated as an unknown match
+            }
+        }
+        if (match == null) {
+            spectator.channel.write(ByteBuffer.wrap((NO_MATCH + "\n").getBytes(StandardCharsets.UTF_8)));
+            dropSpectator(spectator);
+            return;
+        }
+
+        // Binary from here on, starting with the current game so far
+        spectator.match = match;
+        spectator.log = match.log;
+        spectator.cursor = 0;
+        spectator.partial = ByteBuffer.wrap((WireProtocol.SWITCH_TO_BINARY + "\n").getBytes(StandardCharsets.UTF_8));
+        match.spectators.add(spectator);
+        flushSpectator(spectator);
+    }
+
+    // Write shared batches until caught up or the socket is full
+    private void flushSpectator(Spectator spectator) {
+        if (spectator.closed || spectator.match == null) return;
+        try {
+            while (true) {
+                if (spectator.partial == null) {
+                    GameLog log = spectator.log;
+                    if (spectator.cursor < log.batches.size()) {
+                        spectator.partial = log.batches.get(spectator.cursor++).duplicate();
+                    } else if (log.next != null) {
+                        spectator.log = log.next;
+                        spectator.cursor = 0;
+                        continue;
+                    } else {
+                        break;
+                    }
+                }
+                writeStats.recordWrite(spectator.channel.write(spectator.partial));
+                if (spectator.partial.hasRemaining()) break; // Socket full
+                spectator.partial = null;
+            }
+        } catch (IOException e) {
+            dropSpectator(spectator);
+            return;
+        }
+
+        boolean behind = spectator.partial != null;
+        if (behind && spectatorLag(spectator) > MAX_SPECTATOR_LAG) {
+            System.out.println("Dropping spectator of match " + spectator.match.id + ": too far behind");
+            dropSpectator(spectator);
+            return;
+        }
+        if (!behind && spectator.match.ended) {
+            dropSpectator(spectator); // Saw everything there was to see
+            return;
+        }
+        SelectionKey key = spectator.channel.keyFor(selector);
+        if (key != null && key.isValid()) {
+            key.interestOps(behind ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    // Batches not yet written, across the current game and any after it
+    private static int spectatorLag(Spectator spectator) {
+        int lag = spectator.log.batches.size() - spectator.cursor;
+        for (GameLog log = spectator.log.next; log != null; log = log.next) {
+            lag += log.batches.size();
+        }
+        return lag;
+    }
+
+    private void dropSpectator(Spectator spectator) {
+        if (spectator.closed) return;
+        spectator.closed = true;
+        spectators--;
+        if (spectator.match != null) spectator.match.spectators.remove(spectator);
+        try {
+            spectator.channel.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+
+    private void shutdown() {
+        if (replays != null) {
+            for (Match match : matches.values()) {
+                saveRecording(match);
+            }
+            replays.close();
+        }
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+            System.out.println("Game server stopped. Sent " + writeStats);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,694 @@
+package proj;
+
+import java.io.*;
+import java.net.*;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+// The connection to the opponent, or to a match server, for one player. The
+// accept/connect thread stays on as the read loop, and a writer thread sends
+// whatever is flushed, so no lock is held across a blocking write. When the
+// host or server gives us a session token, a dropped connection is not the end
+// of the game: for a grace window the host waits for the opponent to come back
+// and the joining side keeps reconnecting, then both resync (see Snapshot).
+public class GameSocket implements ProtocolListener, Opponent {
+    public static final String GRACE_PROPERTY = "battleship.resume.grace";
+    private static final long GRACE_MS = Long.getLong(GRACE_PROPERTY, 30_000);
+    private static final long MAX_RECONNECT_BACKOFF_MS = 4000;
+    private static final SecureRandom TOKENS = new SecureRandom();
+    
+    private Socket socket;
+    private ServerSocket serverSocket;
+    private InputStream in;
+    private OutputStream out;
+    private WireProtocol protocol = newProtocol(); // A fresh one for each connection
+    private ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+    private final WriteStats writeStats = new WriteStats();
+    private final Metrics metrics = Metrics.get();
+    private boolean counted; // In the metrics' active connections
+    private volatile long attackSentNanos; // 0 when no attack is waiting for its result
+    private Heartbeat heartbeat; // Guarded by this, set once connected
+    
+    // Flushed bytes waiting for the writer thread, each with the stream of the
+    // connection it was encoded for, so nothing leaks onto a resumed connection
+    private static final class Outgoing {
+        final OutputStream stream;
+        final byte[] bytes;
+        
+        Outgoing(OutputStream stream, byte[] bytes) {
+            this.stream = stream;
+            this.bytes = bytes;
+        }
+    }
+    
+    private static final Outgoing STOP = new Outgoing(null, null);
+    private final BlockingQueue<Outgoing> outgoing = new LinkedBlockingQueue<>();
+    private volatile Thread writerThread;
+    private int batchDepth = 0;
+    private boolean isServer;
+    private Controller controller;
+    
+    // Session resume, guarded by this
+    private volatile long sessionToken; // 0 without a session
+    private volatile boolean resuming; // Connection dropped, session not yet re-established
+    private long resumeDeadlineNanos;
+    private long lostSent; // Messages sent and received on the connection that dropped
+    private long lostReceived;
+    private InetSocketAddress remote; // Where the joining side reconnects to
+    
+    // The accept/connect thread keeps running as the read loop for the connection
+    private final ThreadFactory threadFactory;
+    private volatile Thread connectionThread;
+    private volatile boolean closed = false;
+    
+    public GameSocket() {
+        this(Threads.connectionThreads("game-socket"));
+    }
+    
+    public GameSocket(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+    
+    public void setController(Controller controller) {
+        this.controller = controller;
+    }
+    
+    private WireProtocol newProtocol() {
+        WireProtocol fresh = new WireProtocol();
+        fresh.setMetrics(metrics);
+        return fresh;
+    }
+    
+    // Start as server (host game)
+    public void startServer(int port) {
+        startConnectionThread(() -> {
+            try {
+                serverSocket = new ServerSocket(port);
+                System.out.println("Server started on port " + port + ". Waiting for opponent...");
+                isServer = true;
+                
+                socket = serverSocket.accept();
+                System.out.println("Opponent connected!");
+                
+                setupStreams();
+                // The host hands out the token; a returning opponent has to show it
+                synchronized (this) {
+                    long token;
+                    do {
+                        token = TOKENS.nextLong();
+                    } while (token == 0);
+                    sessionToken = token;
+                    protocol.writeSession(token);
+                    flush();
+                }
+                if (controller != null) {
+                    controller.onOpponentConnected();
+                }
+                runSession();
+            } catch (IOException e) {
+                if (closed) return;
+                System.err.println("Server error: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+    
+    // Connect to server (join game)
+    public void connectToServer(String host, int port) {
+        startConnectionThread(() -> {
+            try {
+                System.out.println("Connecting to " + host + ":" + port + "...");
+                remote = new InetSocketAddress(host, port);
+                socket = new Socket(host, port);
+                System.out.println("Connected to server!");
+                isServer = false;
+                
+                setupStreams();
+                if (controller != null) {
+                    controller.onOpponentConnected();
+                }
+                runSession();
+            } catch (IOException e) {
+                if (closed) return;
+                System.err.println("Connection error: " + e.getMessage());
+                if (controller != null) {
+                    controller.onConnectionFailed();
+                }
+                e.printStackTrace();
+            }
+        });
+    }
+    
+    private void startConnectionThread(Runnable task) {
+        Thread thread = threadFactory.newThread(task);
+        connectionThread = thread;
+        thread.start();
+    }
+    
+    private void setupStreams() throws IOException {
+        if (writerThread == null) {
+            Thread writer = threadFactory.newThread(this::writeLoop);
+            writerThread = writer;
+            writer.start();
+        }
+        
+        // Wake the read loop regularly to send pings and notice a silent peer
+        socket.setSoTimeout((int) Math.max(1, Heartbeat.INTERVAL_MS / 2));
+        
+        // Offer the binary protocol; we stay on text until the peer answers
+        synchronized (this) {
+            in = socket.getInputStream();
+            out = socket.getOutputStream();
+            protocol = newProtocol();
+            readBuffer = ByteBuffer.allocate(4096);
+            counted = true;
+            metrics.connectionOpened();
+            heartbeat = new Heartbeat(System.nanoTime());
+            protocol.writeHello();
+            flush();
+        }
+    }
+    
+    private synchronized void connectionEnded() {
+        if (!counted) return;
+        counted = false;
+        metrics.connectionClosed();
+    }
+    
+    // Read until the connection is gone for good. With a session, each dropped
+    // connection is replaced within the grace window if possible.
+    private void runSession() {
+        String reason = listenForMessages();
+        while (reason != null && !closed) {
+            connectionEnded();
+            if (sessionToken == 0 || !resumeAfter(reason)) {
+                if (closed) return;
+                System.err.println("Connection lost: " + reason);
+                if (controller != null) {
+                    controller.onConnectionLost();
+                } else {
+                    close();
+                }
+                return;
+            }
+            reason = listenForMessages();
+        }
+    }
+    
+    // Get a new connection for the session: the host waits for the opponent to
+    // come back, the joining side reconnects. False once the grace window is over.
+    private boolean resumeAfter(String reason) {
+        boolean firstDrop;
+        synchronized (this) {
+            firstDrop = !resuming;
+            if (firstDrop) {
+                lostSent = protocol.getMessagesOut();
+                lostReceived = protocol.getMessagesIn();
+                resumeDeadlineNanos = System.nanoTime() + GRACE_MS * 1_000_000;
+                resuming = true;
+            }
+        }
+        if (firstDrop) {
+            System.err.println("Connection lost (" + reason + "), resuming within " + GRACE_MS / 1000 + " s");
+            if (controller != null) controller.onConnectionInterrupted();
+        }
+        closeSocket();
+        return isServer ? awaitResume() : reconnect();
+    }
+    
+    private boolean awaitResume() {
+        long remaining = remainingGraceMs();
+        if (remaining <= 0) return false;
+        try {
+            serverSocket.setSoTimeout((int) remaining);
+            socket = serverSocket.accept();
+            setupStreams();
+            return true; // The first message has to be a valid RESUME, see onResume
+        } catch (IOException e) {
+            return false; // Timed out, or closed
+        }
+    }
+    
+    private boolean reconnect() {
+        long backoff = 250;
+        while (!closed) {
+            long remaining = remainingGraceMs();
+            if (remaining <= 0) return false;
+            try {
+                Socket fresh = new Socket();
+                fresh.connect(remote, (int) Math.min(remaining, 5000));
+                socket = fresh;
+                setupStreams();
+                synchronized (this) {
+                    protocol.writeResume(sessionToken, lostReceived);
+                    flush();
+                }
+                return true;
+            } catch (IOException e) {
+                try {
+                    Thread.sleep(Math.min(backoff, remaining));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoff = Math.min(backoff * 2, MAX_RECONNECT_BACKOFF_MS);
+            }
+        }
+        return false;
+    }
+    
+    private synchronized long remainingGraceMs() {
+        return (resumeDeadlineNanos - System.nanoTime()) / 1_000_000;
+    }
+    
+    // Drop the current connection; the read loop sees it and returns
+    private void closeSocket() {
+        try {
+            if (socket != null) socket.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+    
+    // Read loop for one connection, on the connection thread. Returns why the
+    // connection ended, or null when close() was called. Reads time out every
+    // half heartbeat interval so pings go out and a silent peer is noticed.
+    private String listenForMessages() {
+        try {
+            ByteBuffer buffer = readBuffer;
+            while (!closed) {
+                int n;
+                try {
+                    n = in.read(buffer.array(), buffer.position(), buffer.remaining());
+                } catch (SocketTimeoutException e) {
+                    n = 0;
+                }
+                if (n < 0) return "closed by the other side";
+                
+                if (n > 0) {
+                    synchronized (this) {
+                        heartbeat.heard(System.nanoTime());
+                    }
+                    buffer.position(buffer.position() + n);
+                    buffer.flip();
+                    protocol.decode(buffer, this);
+                    buffer.compact();
+                    
+                    // A single message larger than the buffer: grow and keep reading
+                    if (!buffer.hasRemaining()) {
+                        ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+                        buffer.flip();
+                        bigger.put(buffer);
+                        buffer = bigger;
+                        readBuffer = bigger;
+                    }
+                }
+                String dead = checkHeartbeat();
+                if (dead != null) return dead;
+            }
+            return null;
+        } catch (IOException e) {
+            return closed ? null : e.getMessage();
+        } catch (RuntimeException e) {
+            // A malformed message (bad number, short frame): the peer cannot be trusted further
+            return closed ? null : "malformed message: " + e;
+        }
+    }
+    
+    // Ping when due. Returns why the connection should be given up, or null.
+    private synchronized String checkHeartbeat() {
+        long now = System.nanoTime();
+        if (resuming && now - resumeDeadlineNanos > 0) {
+            return "session not resumed within " + GRACE_MS / 1000 + " s";
+        }
+        if (heartbeat.isDead(now)) {
+            return "no response for " + heartbeat.getSilentMillis(now) + " ms";
+        }
+        if (heartbeat.pingDue(now)) {
+            protocol.writePing(now);
+            flushUnlessBatching();
+        }
+        return null;
+    }
+    
+    // Incoming messages, decoded by WireProtocol. While a session is being
+    // resumed only the resume handshake gets through.
+    
+    private boolean live() {
+        return controller != null && !resuming;
+    }
+    
+    @Override
+    public void onHello() {
+        // The peer understands binary frames, switch our outbound side
+        synchronized (this) {
+            protocol.switchToBinary();
+            flush();
+        }
+    }
+    
+    @Override
+    public void onPlayerName(String opponentName) {
+        if (live()) controller.onPlayerNameReceived(opponentName);
+    }
+    
+    @Override
+    public void onReady() {
+        if (live()) controller.onOpponentReady();
+    }
+    
+    @Override
+    public void onStart(boolean serverStarts) {
+        if (live()) controller.onGameStart(isServer ? serverStarts : !serverStarts);
+    }
+    
+    @Override
+    public void onAttack(int row, int col) {
+        if (live()) controller.onOpponentAttack(row, col);
+    }
+    
+    @Override
+    public void onResult(boolean isHit) {
+        long sent = attackSentNanos;
+        if (sent != 0) {
+            attackSentNanos = 0;
+            metrics.attackRoundTrip.recordSince(sent);
+        }
+        if (live()) controller.onAttackResult(isHit);
+    }
+    
+    @Override
+    public void onSunk(int row, int col, int size, boolean vertical) {
+        if (live()) controller.onOpponentShipSunk(row, col, size, vertical);
+    }
+    
+    @Override
+    public void onShip(int row, int col, int size, boolean vertical) {
+        // The opponent's revealed fleet is only shown to spectators
+    }
+    
+    @Override
+    public void onSeat(int seat) {
+        // Spectator streams only
+    }
+    
+    @Override
+    public void onWin() {
+        if (live()) controller.onOpponentWins();
+    }
+    
+    @Override
+    public void onRematchRequest() {
+        if (live()) controller.onRematchRequest();
+    }
+    
+    @Override
+    public void onRematchAccept() {
+        if (live()) controller.onRematchAccept();
+    }
+    
+    @Override
+    public void onChat(String chatMessage) {
+        System.out.println("Opponent: " + chatMessage);
+    }
+    
+    @Override
+    public void onLobby() {
+        if (live()) controller.onWaitingInLobby();
+    }
+    
+    @Override
+    public void onMatched() {
+        if (live()) controller.onOpponentConnected();
+    }
+    
+    @Override
+    public void onVariant(String spec) {
+        if (live()) controller.onVariant(spec);
+    }
+    
+    @Override
+    public synchronized void onPing(long token) {
+        heartbeat.onPing(System.nanoTime());
+        protocol.writePong(token);
+        flushUnlessBatching();
+    }
+    
+    @Override
+    public void onPong(long token) {
+        long rtt;
+        synchronized (this) {
+            rtt = heartbeat.onPong(token, System.nanoTime());
+        }
+        if (rtt >= 0) metrics.pingRtt.record(rtt);
+    }
+    
+    @Override
+    public void onSession(long token) {
+        // Only the accepting side hands out tokens
+        if (!isServer) sessionToken = token;
+    }
+    
+    @Override
+    public void onResume(long token, long received) {
+        synchronized (this) {
+            if (!isServer || !resuming || token == 0 || token != sessionToken) {
+                // Not our opponent coming back: turn it away and keep waiting
+                protocol.writeNoSession();
+                flush();
+                closeSocket();
+                return;
+            }
+            resuming = false;
+            System.out.println("Opponent resumed the session; " + Math.max(0, lostSent - received)
+                    + " of our messages had been lost");
+            protocol.writeResumed(lostReceived);
+            flush();
+        }
+        if (controller != null) controller.onResumed();
+    }
+    
+    @Override
+    public void onResumed(long received) {
+        synchronized (this) {
+            if (resuming) {
+                resuming = false;
+                System.out.println("Session resumed; " + Math.max(0, lostSent - received)
+                        + " of our messages had been lost");
+            }
+            // Otherwise the match server says our opponent is back
+        }
+        if (controller != null) controller.onResumed();
+    }
+    
+    @Override
+    public void onAway() {
+        if (live()) controller.onOpponentAway();
+    }
+    
+    @Override
+    public void onSnapshot(byte[] snapshot) {
+        if (live()) controller.onSnapshot(snapshot);
+    }
+    
+    @Override
+    public void onNoSession() {
+        // The session is gone (the opponent never came back): the game is over
+        sessionToken = 0;
+        closeSocket();
+    }
+    
+    @Override
+    public void onUnknown(String command) {
+        System.err.println("Unknown command: " + command);
+    }
+    
+    // Outgoing messages. Each send is queued in the protocol's buffer and flushed
+    // to the writer straight away, unless a batch is open: then everything sent
+    // inside the batch goes out in one write when it ends.
+    
+    public synchronized void beginBatch() {
+        batchDepth++;
+    }
+    
+    public synchronized void endBatch() {
+        if (batchDepth > 0 && --batchDepth == 0) {
+            flush();
+        }
+    }
+    
+    public synchronized void sendReady() {
+        protocol.writeReady();
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendStartGame(boolean serverStarts) {
+        protocol.writeStart(serverStarts);
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendAttack(int row, int col) {
+        // Timeout passes get no result back
+        if (row >= 0) attackSentNanos = System.nanoTime();
+        protocol.writeAttack(row, col);
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendAttackResult(boolean isHit) {
+        protocol.writeResult(isHit);
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendSunk(int row, int col, int size, boolean vertical) {
+        protocol.writeSunk(row, col, size, vertical);
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendShip(int row, int col, int size, boolean vertical) {
+        protocol.writeShip(row, col, size, vertical);
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendWin() {
+        protocol.writeWin();
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendPlayerName(String name) {
+        protocol.writePlayerName(name);
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendRematchRequest() {
+        protocol.writeRematchRequest();
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendRematchAccept() {
+        protocol.writeRematchAccept();
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendVariant(Variant variant) {
+        protocol.writeVariant(variant.toString());
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendSnapshot(byte[] snapshot) {
+        protocol.writeSnapshot(snapshot);
+        flushUnlessBatching();
+    }
+    
+    // The peer (or match server) ends the game on NO_SESSION and closes, which
+    // then ends ours as a lost connection that is not resumed
+    public synchronized void endSession() {
+        sessionToken = 0;
+        protocol.writeNoSession();
+        flushUnlessBatching();
+    }
+    
+    public synchronized void sendChat(String message) {
+        protocol.writeChat(message);
+        flushUnlessBatching();
+    }
+    
+    private void flushUnlessBatching() {
+        if (batchDepth == 0) {
+            flush();
+        }
+    }
+    
+    // Hand everything the protocol has encoded so far to the writer thread, which
+    // sends it in one write. Only the writer blocks on the socket: a peer that
+    // stops reading can fill the send buffer, and nobody holding this monitor
+    // (the read loop's heartbeat check included) may be stuck behind that.
+    public synchronized void flush() {
+        if (out == null || !protocol.hasPending()) return;
+        ByteBuffer pending = protocol.beginWrite();
+        byte[] bytes = new byte[pending.remaining()];
+        pending.get(bytes);
+        writeStats.recordFlush(protocol.takeQueuedMessages());
+        protocol.finishWrite();
+        outgoing.add(new Outgoing(out, bytes));
+    }
+    
+    // The writer thread: sends flushed bytes in order until close()
+    private void writeLoop() {
+        try {
+            while (true) {
+                Outgoing next = outgoing.take();
+                if (next == STOP) return;
+                try {
+                    next.stream.write(next.bytes);
+                    writeStats.recordWrite(next.bytes.length);
+                } catch (IOException e) {
+                    // The read loop notices the dead connection and deals with it
+                    if (!closed) System.err.println("Send error: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public WriteStats getWriteStats() {
+        return writeStats;
+    }
+    
+    // Smoothed round trip time to the peer and its jitter, -1 until the first PONG
+    public synchronized double getSrttMillis() {
+        return heartbeat != null && heartbeat.hasRtt() ? heartbeat.getSrttMillis() : -1;
+    }
+    
+    public synchronized double getRttVarMillis() {
+        return heartbeat != null && heartbeat.hasRtt() ? heartbeat.getRttVarMillis() : -1;
+    }
+    
+    public boolean isServer() {
+        return isServer;
+    }
+    
+    public boolean isConnected() {
+        return socket != null && socket.isConnected() && !socket.isClosed();
+    }
+    
+    // Stop the connection: closing the sockets unblocks accept/read, then wait
+    // briefly for the connection thread to finish
+    public void close() {
+        closed = true;
+        connectionEnded();
+        
+        // Let the writer send what is queued; closing the socket below unblocks it if stuck
+        Thread writer = writerThread;
+        outgoing.add(STOP);
+        if (writer != null && writer != Thread.currentThread()) {
+            try {
+                writer.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (in != null) in.close();
+            if (out != null) out.close();
+            if (socket != null) socket.close();
+            if (serverSocket != null) serverSocket.close();
+            System.out.println("Socket closed. Sent " + writeStats);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        
+        Thread thread = connectionThread;
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
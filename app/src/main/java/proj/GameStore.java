@@ -0,0 +1,37 @@
+package proj;
+
+import java.util.List;
+
+// Where finished games, player stats and history are kept. Database is the
+// MySQL implementation, LocalGameStore an embedded one for machines without it.
+public interface GameStore {
+    // Property selecting the backend: "mysql", "local" or "auto" (MySQL when reachable)
+    String STORE_PROPERTY = "battleship.store";
+
+    // Save the batch atomically, returns false if nothing was saved
+    boolean saveGameResults(List<GameResult> results);
+
+    List<PlayerStats> getLeaderboard() throws StoreException;
+
+    // One page of history, newest first, continuing after the given game (null for the first page)
+    List<GameRecord> getGamesPage(GameHistoryQuery query, GameRecord after, int limit) throws StoreException;
+
+    boolean isConnected();
+
+    void close();
+
+    static GameStore open() {
+        String backend = System.getProperty(STORE_PROPERTY, "auto");
+        if (backend.equals("local")) {
+            return LocalGameStore.openDefault();
+        }
+
+        Database database = new Database();
+        if (backend.equals("mysql") || database.isConnected()) {
+            return database;
+        }
+        System.out.println("MySQL not available, using the local game store.");
+        database.close();
+        return LocalGameStore.openDefault();
+    }
+}
@@ -0,0 +1,120 @@
+package proj;
+
+// Liveness and round trip tracking for one connection. The owner pings every
+// interval with its own System.nanoTime() as the token; the echoed PONG gives
+// an RTT sample, smoothed the way TCP does it (RFC 6298): SRTT moves 1/8 of
+// the way to each sample, RTTVAR (the jitter) 1/4 of the way to the deviation.
+//
+// A peer only counts as dead once it has shown it speaks the heartbeat (sent
+// a PING or PONG) and then stays silent for the timeout. Anything received
+// counts as a sign of life. Older peers that never answer are pinged once and
+// then left alone, so they are not disconnected for being old.
+//
+// Not thread-safe on its own: GameServer uses it from the selector thread,
+// GameSocket under its own lock.
+public class Heartbeat {
+    public static final String INTERVAL_PROPERTY = "battleship.heartbeat.interval";
+    public static final String TIMEOUT_PROPERTY = "battleship.heartbeat.timeout";
+    public static final long INTERVAL_MS = Long.getLong(INTERVAL_PROPERTY, 2000);
+    public static final long TIMEOUT_MS = Long.getLong(TIMEOUT_PROPERTY, 6000);
+
+    private final long intervalNanos;
+    private final long timeoutNanos;
+    private long lastHeardNanos;
+    private long lastPingNanos;
+    private boolean pinged;
+    private boolean supported;
+
+    // Smoothed RTT and its mean deviation, in nanos; srtt is 0 until the first sample
+    private long srtt;
+    private long rttvar;
+    private long lastRtt;
+    private long samples;
+
+    public Heartbeat(long nowNanos) {
+        this(nowNanos, INTERVAL_MS, TIMEOUT_MS);
+    }
+
+    public Heartbeat(long nowNanos, long intervalMs, long timeoutMs) {
+        this.intervalNanos = intervalMs * 1_000_000;
+        this.timeoutNanos = timeoutMs * 1_000_000;
+        this.lastHeardNanos = nowNanos;
+    }
+
+    // Any bytes from the peer
+    public void heard(long nowNanos) {
+        lastHeardNanos = nowNanos;
+    }
+
+    public void onPing(long nowNanos) {
+        supported = true;
+        lastHeardNanos = nowNanos;
+    }
+
+    // Returns the RTT sample in nanos, or -1 if the token is not one of ours
+    public long onPong(long token, long nowNanos) {
+        supported = true;
+        lastHeardNanos = nowNanos;
+        long rtt = nowNanos - token;
+        if (rtt < 0 || rtt > timeoutNanos * 10) return -1;
+        lastRtt = rtt;
+        samples++;
+        if (srtt == 0) {
+            srtt = rtt;
+            rttvar = rtt / 2;
+        } else {
+            rttvar += (Math.abs(srtt - rtt) - rttvar) / 4;
+            srtt += (rtt - srtt) / 8;
+        }
+        return rtt;
+    }
+
+    // True when a ping is due; the caller sends one with nowNanos as its token
+    public boolean pingDue(long nowNanos) {
+        if (!pinged) {
+            pinged = true;
+            lastPingNanos = nowNanos;
+            return true;
+        }
+        if (!supported || nowNanos - lastPingNanos < intervalNanos) return false;
+        lastPingNanos = nowNanos;
+        return true;
+    }
+
+    public boolean isDead(long nowNanos) {
+        return supported && nowNanos - lastHeardNanos > timeoutNanos;
+    }
+
+    public long getSilentMillis(long nowNanos) {
+        return (nowNanos - lastHeardNanos) / 1_000_000;
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    public boolean hasRtt() {
+        return samples > 0;
+    }
+
+    public double getSrttMillis() {
+        return srtt / 1_000_000.0;
+    }
+
+    public double getRttVarMillis() {
+        return rttvar / 1_000_000.0;
+    }
+
+    public double getLastRttMillis() {
+        return lastRtt / 1_000_000.0;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    @Override
+    public String toString() {
+        return hasRtt() ? String.format("rtt %.1f ms +/- %.1f ms", getSrttMillis(), getRttVarMillis()) : "rtt unknown";
+    }
+}
@@ -0,0 +1,119 @@
+package proj;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// In-memory top-K leaderboard. It is loaded from SQL once and then kept current
+// from the stat deltas of every batch this process commits, so reads are just a
+// volatile read of an immutable list. Writes from other processes, and players
+// just outside the top K overtaking a cached player whose win rate fell, are
+// picked up by reloading once the snapshot is older than the staleness window.
+public class LeaderboardCache {
+    // Same order as the SQL: wins, then win rate, then name to break ties
+    static final Comparator<PlayerStats> RANKING = Comparator
+            .comparingInt(PlayerStats::getWins).reversed()
+            .thenComparing(Comparator.comparingDouble(PlayerStats::getWinRate).reversed())
+            .thenComparing(PlayerStats::getName);
+
+    // Where the cache loads from on a miss
+    public interface Source {
+        List<PlayerStats> loadTop(int limit) throws SQLException;
+
+        // Current totals for one player, null if unknown
+        PlayerStats loadPlayer(String name) throws SQLException;
+    }
+
+    private final Source source;
+    private final int size;
+    private final long maxStalenessMs;
+
+    // Ranked top-K, replaced wholesale and never mutated
+    private volatile List<PlayerStats> snapshot = Collections.emptyList();
+    private volatile boolean valid = false;
+    private volatile long loadedAt = 0;
+    private long loadStartedNanos = 0;
+
+    // Players currently in the snapshot, by name. Guarded by this.
+    private final Map<String, PlayerStats> entries = new HashMap<>();
+
+    public LeaderboardCache(Source source, int size, long maxStalenessMs) {
+        this.source = source;
+        this.size = size;
+        this.maxStalenessMs = maxStalenessMs;
+    }
+
+    public List<PlayerStats> getTop() throws SQLException {
+        if (!valid || System.currentTimeMillis() - loadedAt > maxStalenessMs) {
+            reload();
+        }
+        return snapshot;
+    }
+
+    public void invalidate() {
+        valid = false;
+    }
+
+    private synchronized void reload() throws SQLException {
+        // Another caller may have reloaded while we waited for the lock
+        if (valid && System.currentTimeMillis() - loadedAt <= maxStalenessMs) return;
+
+        long started = System.nanoTime();
+        List<PlayerStats> top = source.loadTop(size);
+        loadStartedNanos = started;
+        entries.clear();
+        for (PlayerStats stats : top) {
+            entries.put(stats.getName(), stats);
+        }
+        publish();
+        loadedAt = System.currentTimeMillis();
+        valid = true;
+    }
+
+    // Apply one committed stats change. Cached players are updated in place; anyone
+    // else is looked up by name (a unique-key read) to see whether they now rank.
+    // The commit ran between System.nanoTime() readings commitStartNanos and
+    // commitEndNanos: a snapshot loaded after it already includes the change and
+    // is not counted twice, one loaded during it may or may not and is dropped.
+    public synchronized void apply(String name, int winsDelta, int lossesDelta, int hitsDelta,
+                                   long commitStartNanos, long commitEndNanos) {
+        if (!valid) return; // Next read reloads anyway
+        if (loadStartedNanos - commitEndNanos >= 0) return; // Snapshot already has it
+        if (loadStartedNanos - commitStartNanos > 0) {
+            valid = false; // Raced the commit, reload rather than guess
+            return;
+        }
+
+        PlayerStats current = entries.get(name);
+        try {
+            PlayerStats updated = current != null
+                    ? current.plus(winsDelta, lossesDelta, hitsDelta)
+                    : source.loadPlayer(name);
+            if (updated != null) {
+                entries.put(name, updated);
+            }
+        } catch (SQLException e) {
+            System.err.println("Leaderboard cache lookup failed, will reload: " + e.getMessage());
+            valid = false;
+            return;
+        }
+        publish();
+    }
+
+    // Rank the entries, keep the top K and publish them as the new snapshot
+    private void publish() {
+        List<PlayerStats> ranked = new ArrayList<>(entries.values());
+        ranked.sort(RANKING);
+        if (ranked.size() > size) {
+            for (PlayerStats dropped : ranked.subList(size, ranked.size())) {
+                entries.remove(dropped.getName());
+            }
+            ranked = new ArrayList<>(ranked.subList(0, size));
+        }
+        snapshot = Collections.unmodifiableList(ranked);
+    }
+}
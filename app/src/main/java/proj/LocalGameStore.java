@@ -0,0 +1,359 @@
+package proj;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Embedded game store: an append-only record log in a memory-mapped file, with
+// players, games and per-player game lists indexed in memory. The log is
+// replayed into the indexes on open; after that every read is served from memory.
+//
+// File layout: a 16-byte header (magic, then the committed end offset at byte 8)
+// followed by game records [u8 type][i32 body length][body]. A batch is written
+// past the committed end and flushed, and only then made visible by updating
+// and flushing the header offset, so a crash mid-batch leaves the previous
+// state intact.
+public class LocalGameStore implements GameStore {
+    private static final byte[] MAGIC = {'B', 'S', 'L', 'O', 'G', '1'};
+    private static final int HEADER_SIZE = 16;
+    private static final int END_OFFSET_POSITION = 8;
+    private static final byte RECORD_GAME = 1;
+    private static final int RECORD_HEADER_SIZE = 5;
+    private static final int INITIAL_MAP_SIZE = 1 << 20;
+    private static final int LEADERBOARD_SIZE = 20;
+
+    private final File file;
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int end;
+
+    // Games in id order; ids are assigned 1, 2, 3... so game id n is games.get(n - 1).
+    // Dates never go backwards, so id order is also date order.
+    private final List<GameRecord> games = new ArrayList<>();
+    private final Map<String, PlayerStats> players = new HashMap<>();
+    private final Map<String, IntList> gamesByPlayer = new HashMap<>();
+    private long lastGameMillis = 0;
+
+    private final LeaderboardCache leaderboard;
+
+    // Growable list of game positions, ascending
+    private static class IntList {
+        int[] values = new int[8];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+
+    public LocalGameStore(File file) throws IOException {
+        this.file = file;
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean isNew = channel.size() == 0;
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAP_SIZE, channel.size()));
+
+        if (isNew) {
+            map.put(0, MAGIC);
+            end = HEADER_SIZE;
+            map.putLong(END_OFFSET_POSITION, end);
+            map.force();
+        } else {
+            byte[] magic = new byte[MAGIC.length];
+            map.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                channel.close();
+                throw new IOException(file + " is not a game store file");
+            }
+            end = (int) map.getLong(END_OFFSET_POSITION);
+            replay();
+        }
+
+        leaderboard = new LeaderboardCache(new LeaderboardCache.Source() {
+            @Override
+            public List<PlayerStats> loadTop(int limit) {
+                return topPlayers(limit);
+            }
+
+            @Override
+            public PlayerStats loadPlayer(String name) {
+                return playerStats(name);
+            }
+        }, LEADERBOARD_SIZE, Long.MAX_VALUE); // Only this process writes, so the cache never goes stale
+        System.out.println("Local game store opened: " + file + " (" + games.size() + " games)");
+    }
+
+    // ~/.battleship/games.log unless battleship.data points elsewhere; null if it cannot be opened
+    public static LocalGameStore openDefault() {
+        String dir = System.getProperty("battleship.data", System.getProperty("user.home") + File.separator + ".battleship");
+        try {
+            return new LocalGameStore(new File(dir, "games.log"));
+        } catch (IOException e) {
+            System.err.println("Local game store not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void replay() throws IOException {
+        int position = HEADER_SIZE;
+        while (position < end) {
+            byte type = map.get(position);
+            int length = map.getInt(position + 1);
+            if (type != RECORD_GAME || position + RECORD_HEADER_SIZE + length > end) {
+                throw new IOException(file + " is corrupt at offset " + position);
+            }
+            ByteBuffer body = map.duplicate();
+            body.position(position + RECORD_HEADER_SIZE);
+            body.limit(position + RECORD_HEADER_SIZE + length);
+
+            long id = body.getLong();
+            long millis = body.getLong();
+            int player1Hits = body.getInt();
+            int player2Hits = body.getInt();
+            String player1 = readString(body);
+            String player2 = readString(body);
+            String winner = readString(body);
+            index(new GameRecord(id, player1, player2, winner, player1Hits, player2Hits, new Timestamp(millis)));
+
+            position += RECORD_HEADER_SIZE + length;
+        }
+    }
+
+    // Writes
+
+    // The cache calls back into the store (under its own lock), so it is only
+    // updated after the store lock is released; the commit timestamps keep a
+    // reload in between from counting the batch twice
+    @Override
+    public boolean saveGameResults(List<GameResult> results) {
+        if (results.isEmpty()) return true;
+
+        List<GameRecord> written = new ArrayList<>(results.size());
+        long commitStartNanos;
+        long commitEndNanos;
+        synchronized (this) {
+            try {
+                int position = end;
+                long millis = Math.max(System.currentTimeMillis(), lastGameMillis);
+                long id = games.size();
+                for (GameResult result : results) {
+                    GameRecord game = new GameRecord(++id, result.getPlayer1(), result.getPlayer2(), result.getWinner(),
+                            result.getPlayer1Hits(), result.getPlayer2Hits(), new Timestamp(millis));
+                    position = append(position, game);
+                    written.add(game);
+                }
+
+                // Records reach the disk first: force() does not order the pages it
+                // writes, and the header must never point past records that are lost
+                map.force();
+
+                // Publish the batch: one header update, flushed on its own
+                commitStartNanos = System.nanoTime();
+                map.putLong(END_OFFSET_POSITION, position);
+                map.force();
+                end = position;
+                commitEndNanos = System.nanoTime();
+
+                for (GameRecord game : written) {
+                    index(game);
+                }
+            } catch (IOException e) {
+                System.err.println("Error saving game results.");
+                e.printStackTrace();
+                return false;
+            }
+        }
+
+        for (GameRecord game : written) {
+            leaderboard.apply(game.getPlayer1(), won(game, game.getPlayer1()), lost(game, game.getPlayer1()),
+                    game.getPlayer1Hits(), commitStartNanos, commitEndNanos);
+            leaderboard.apply(game.getPlayer2(), won(game, game.getPlayer2()), lost(game, game.getPlayer2()),
+                    game.getPlayer2Hits(), commitStartNanos, commitEndNanos);
+        }
+        return true;
+    }
+
+    private static int won(GameRecord game, String player) {
+        return player.equals(game.getWinner()) ? 1 : 0;
+    }
+
+    private static int lost(GameRecord game, String player) {
+        return player.equals(game.getWinner()) ? 0 : 1;
+    }
+
+    private int append(int position, GameRecord game) throws IOException {
+        byte[] player1 = game.getPlayer1().getBytes(StandardCharsets.UTF_8);
+        byte[] player2 = game.getPlayer2().getBytes(StandardCharsets.UTF_8);
+        byte[] winner = game.getWinner().getBytes(StandardCharsets.UTF_8);
+        int length = 8 + 8 + 4 + 4 + 2 + player1.length + 2 + player2.length + 2 + winner.length;
+        ensureCapacity(position + RECORD_HEADER_SIZE + length);
+
+        ByteBuffer out = map.duplicate();
+        out.position(position);
+        out.put(RECORD_GAME).putInt(length);
+        out.putLong(game.getId()).putLong(game.getGameDate().getTime());
+        out.putInt(game.getPlayer1Hits()).putInt(game.getPlayer2Hits());
+        writeString(out, player1);
+        writeString(out, player2);
+        writeString(out, winner);
+        return out.position();
+    }
+
+    private void ensureCapacity(long needed) throws IOException {
+        if (needed <= map.capacity()) return;
+        long size = map.capacity();
+        while (size < needed) size *= 2;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Game store is full");
+        }
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static void writeString(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // In-memory indexes
+
+    private void index(GameRecord game) {
+        int position = games.size();
+        games.add(game);
+        lastGameMillis = game.getGameDate().getTime();
+
+        addStats(game.getPlayer1(), won(game, game.getPlayer1()), lost(game, game.getPlayer1()), game.getPlayer1Hits());
+        addStats(game.getPlayer2(), won(game, game.getPlayer2()), lost(game, game.getPlayer2()), game.getPlayer2Hits());
+
+        gamesByPlayer.computeIfAbsent(game.getPlayer1(), k -> new IntList()).add(position);
+        if (!game.getPlayer2().equals(game.getPlayer1())) {
+            gamesByPlayer.computeIfAbsent(game.getPlayer2(), k -> new IntList()).add(position);
+        }
+    }
+
+    private void addStats(String name, int wins, int losses, int hits) {
+        PlayerStats current = players.get(name);
+        players.put(name, current == null
+                ? new PlayerStats(name, wins, losses, hits)
+                : current.plus(wins, losses, hits));
+    }
+
+    // Reads
+
+    @Override
+    public List<PlayerStats> getLeaderboard() throws StoreException {
+        try {
+            return leaderboard.getTop();
+        } catch (java.sql.SQLException e) {
+            throw new StoreException("Error retrieving leaderboard", e);
+        }
+    }
+
+    private synchronized PlayerStats playerStats(String name) {
+        return players.get(name);
+    }
+
+    private synchronized List<PlayerStats> topPlayers(int limit) {
+        List<PlayerStats> ranked = new ArrayList<>(players.values());
+        ranked.sort(LeaderboardCache.RANKING);
+        return new ArrayList<>(ranked.subList(0, Math.min(limit, ranked.size())));
+    }
+
+    @Override
+    public synchronized List<GameRecord> getGamesPage(GameHistoryQuery query, GameRecord after, int limit) {
+        List<GameRecord> page = new ArrayList<>(limit);
+
+        // Candidate positions: every game, or just the player's own list
+        IntList candidates = null;
+        int count = games.size();
+        if (query.getPlayer() != null) {
+            candidates = gamesByPlayer.get(query.getPlayer());
+            if (candidates == null) return page;
+            count = candidates.size;
+        }
+
+        // Start below the cursor and below the "to" bound, both found by binary search
+        int start = count - 1;
+        if (after != null) {
+            start = Math.min(start, lastCandidateBelow(candidates, count, (int) (after.getId() - 1)));
+        }
+        if (query.getTo() != null) {
+            start = Math.min(start, lastCandidateBefore(candidates, count, query.getTo().getTime()));
+        }
+
+        for (int i = start; i >= 0 && page.size() < limit; i--) {
+            GameRecord game = games.get(candidates == null ? i : candidates.values[i]);
+            if (query.getFrom() != null && game.getGameDate().before(query.getFrom())) break;
+            page.add(game);
+        }
+        return page;
+    }
+
+    // Index of the last candidate whose game position is below the given position
+    private int lastCandidateBelow(IntList candidates, int count, int position) {
+        if (candidates == null) return position - 1;
+        int low = 0, high = count - 1, found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (candidates.values[mid] < position) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    // Index of the last candidate played strictly before the given time
+    private int lastCandidateBefore(IntList candidates, int count, long millis) {
+        int low = 0, high = count - 1, found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            GameRecord game = games.get(candidates == null ? mid : candidates.values[mid]);
+            if (game.getGameDate().getTime() < millis) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            map.force();
+            channel.close();
+            System.out.println("Local game store closed.");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
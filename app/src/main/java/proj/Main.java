@@ -0,0 +1,84 @@
+package proj;
+import javax.swing.*;
+import javax.swing.border.Border;
+import javax.swing.border.LineBorder;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.event.KeyListener;
+public class Main {
+
+	public static void main(String[] args) {
+		// Headless match server: java proj.Main --server [port] [--bots [waitMs]] [--variant size:ships]
+		//                                            [--spectators [port]] [--replays [dir]]
+		//                                            [--metrics [seconds]]
+		if (args.length > 0 && args[0].equals("--server")) {
+			int port = args.length > 1 && !args[1].startsWith("--") ? Integer.parseInt(args[1]) : 12345;
+			
+			// With --bots, a player waiting alone in the lobby gets a computer opponent
+			// With --variant, every match is played on that board size and fleet
+			long botAfterMs = -1;
+			Variant variant = Variant.STANDARD;
+			int spectatorPort = -1;
+			java.io.File replayDir = null;
+			for (int i = 1; i < args.length; i++) {
+				if (args[i].equals("--bots")) {
+					botAfterMs = i + 1 < args.length && !args[i + 1].startsWith("--") ? Long.parseLong(args[i + 1]) : 0;
+				} else if (args[i].equals("--variant") && i + 1 < args.length) {
+					variant = Variant.parse(args[i + 1]);
+				} else if (args[i].equals("--spectators")) {
+					// Viewers connect to their own port, next to the players' one by default
+					spectatorPort = i + 1 < args.length && !args[i + 1].startsWith("--") ? Integer.parseInt(args[i + 1]) : port + 1;
+				} else if (args[i].equals("--replays")) {
+					// Every game is recorded to a per-day segment file in this directory
+					replayDir = i + 1 < args.length && !args[i + 1].startsWith("--") ? new java.io.File(args[i + 1]) : ReplayWriter.defaultDir();
+				} else if (args[i].equals("--metrics")) {
+					// Print the metrics report every interval, as well as serving it over JMX
+					System.setProperty(Metrics.DUMP_PROPERTY, "true");
+					if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+						System.setProperty(Metrics.INTERVAL_PROPERTY, args[i + 1]);
+					}
+				}
+			}
+			Metrics.start();
+			try {
+				GameServer server = new GameServer(port, botAfterMs, variant);
+				server.setSpectatorPort(spectatorPort);
+				if (replayDir != null) server.setReplayWriter(new ReplayWriter(replayDir));
+				server.run();
+			} catch (java.io.IOException e) {
+				System.err.println("Server error: " + e.getMessage());
+				e.printStackTrace();
+			}
+			return;
+		}
+		
+		// Watch a match on a server's spectator port: java proj.Main --watch host port [matchId]
+		if (args.length > 2 && args[0].equals("--watch")) {
+			try {
+				new SpectatorClient().watch(args[1], Integer.parseInt(args[2]), args.length > 3 ? args[3] : null);
+			} catch (java.io.IOException e) {
+				System.err.println("Spectator error: " + e.getMessage());
+				e.printStackTrace();
+			}
+			return;
+		}
+		
+		// Play back a recorded game: java proj.Main --replay file [speed] [game number]
+		if (args.length > 0 && args[0].equals("--replay")) {
+			ReplayReader.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		
+		// Self-play between bot strategies: java proj.Main --simulate [games] [seed]
+		if (args.length > 0 && args[0].equals("--simulate")) {
+			Simulator.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		
+		Metrics.start();
+		Controller controller = new Controller();
+        new View(controller);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+package proj;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Process-wide latency and throughput instrumentation for the network, rules
+// and storage paths. Recording is always on and costs a few atomic adds; the
+// numbers are read over JMX (proj:type=Metrics, e.g. with jconsole) and,
+// when battleship.metrics.dump is set, printed every sampling interval.
+//
+// System properties: battleship.metrics.interval (seconds between rate
+// samples, default 10) and battleship.metrics.dump (true to print a report
+// each interval).
+public class Metrics implements MetricsMXBean {
+    public static final String INTERVAL_PROPERTY = "battleship.metrics.interval";
+    public static final String DUMP_PROPERTY = "battleship.metrics.dump";
+    private static final String OBJECT_NAME = "proj:type=Metrics";
+    private static final int DEFAULT_INTERVAL_SECONDS = 10;
+
+    // Inbound message names by opcode; 0 collects HELLO, BINARY and unknown commands
+    private static final String[] COMMANDS = {"OTHER", "PLAYER_NAME", "READY", "START", "ATTACK", "RESULT", "WIN",
+            "REMATCH_REQUEST", "REMATCH_ACCEPT", "CHAT", "LOBBY", "MATCHED", "VARIANT", "SUNK", "SHIP", "SEAT",
+            "PING", "PONG", "SESSION", "RESUME", "RESUMED", "AWAY", "SNAPSHOT", "NO_SESSION"};
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    // From sending an attack to reading its result; on the server, the defender's leg of the relay
+    public final LatencyHistogram attackRoundTrip = new LatencyHistogram("attack round trip");
+    // Decoding one inbound message and running its handler
+    public final LatencyHistogram messageHandling = new LatencyHistogram("message handling");
+    public final LatencyHistogram saveGameResults = new LatencyHistogram("saveGameResults batch");
+    public final LatencyHistogram leaderboardQuery = new LatencyHistogram("leaderboard query");
+    public final LatencyHistogram historyQuery = new LatencyHistogram("history page query");
+    // Heartbeat round trips: the network alone, to tell lag from slow players in attackRoundTrip
+    public final LatencyHistogram pingRtt = new LatencyHistogram("ping rtt");
+
+    private final LongAdder[] inbound = new LongAdder[COMMANDS.length];
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final LongAdder connectionsOpened = new LongAdder();
+
+    // Rates, updated by the sampler thread
+    private final long[] lastInbound = new long[COMMANDS.length];
+    private long lastSampleNanos = System.nanoTime();
+    private volatile Map<String, Double> inboundRates = Map.of();
+    private Thread sampler;
+
+    private Metrics() {
+        for (int i = 0; i < inbound.length; i++) {
+            inbound[i] = new LongAdder();
+        }
+    }
+
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    // Register with JMX and start sampling; later calls do nothing
+    public static synchronized void start() {
+        if (INSTANCE.sampler != null) return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Metrics not available over JMX: " + e.getMessage());
+        }
+
+        long intervalMs = 1000L * Math.max(1, Integer.getInteger(INTERVAL_PROPERTY, DEFAULT_INTERVAL_SECONDS));
+        boolean dump = Boolean.getBoolean(DUMP_PROPERTY);
+        Thread thread = new Thread(() -> INSTANCE.sampleLoop(intervalMs, dump ? System.out : null), "metrics");
+        thread.setDaemon(true);
+        INSTANCE.sampler = thread;
+        thread.start();
+    }
+
+    private void sampleLoop(long intervalMs, PrintStream dump) {
+        while (true) {
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            sample();
+            if (dump != null) dump.print(getReport());
+        }
+    }
+
+    private synchronized void sample() {
+        long now = System.nanoTime();
+        double seconds = (now - lastSampleNanos) / 1e9;
+        lastSampleNanos = now;
+        Map<String, Double> rates = new LinkedHashMap<>();
+        for (int i = 0; i < inbound.length; i++) {
+            long total = inbound[i].sum();
+            long delta = total - lastInbound[i];
+            lastInbound[i] = total;
+            if (delta > 0) rates.put(COMMANDS[i], delta / seconds);
+        }
+        inboundRates = rates;
+    }
+
+    // Recording
+
+    public void recordMessage(int opcode, long nanos) {
+        inbound[opcode > 0 && opcode < COMMANDS.length ? opcode : 0].increment();
+        messageHandling.record(nanos);
+    }
+
+    public void connectionOpened() {
+        activeConnections.incrementAndGet();
+        connectionsOpened.increment();
+    }
+
+    public void connectionClosed() {
+        activeConnections.decrementAndGet();
+    }
+
+    // JMX
+
+    @Override
+    public LatencyHistogram.Summary getAttackRoundTrip() {
+        return attackRoundTrip.summary();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getMessageHandling() {
+        return messageHandling.summary();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getSaveGameResults() {
+        return saveGameResults.summary();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getLeaderboardQuery() {
+        return leaderboardQuery.summary();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getHistoryQuery() {
+        return historyQuery.summary();
+    }
+
+    @Override
+    public LatencyHistogram.Summary getPingRtt() {
+        return pingRtt.summary();
+    }
+
+    @Override
+    public Map<String, Long> getInboundMessages() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < inbound.length; i++) {
+            long n = inbound[i].sum();
+            if (n > 0) counts.put(COMMANDS[i], n);
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getInboundMessagesPerSecond() {
+        return inboundRates;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    @Override
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder("Metrics: ")
+                .append(getActiveConnections()).append(" connections (")
+                .append(getConnectionsOpened()).append(" opened)\n");
+        for (LatencyHistogram histogram : new LatencyHistogram[]{attackRoundTrip, messageHandling,
+                pingRtt, saveGameResults, leaderboardQuery, historyQuery}) {
+            if (histogram.getCount() == 0) continue;
+            report.append("  ").append(histogram.getName()).append(": ").append(histogram.summary()).append('\n');
+        }
+        Map<String, Double> rates = inboundRates;
+        if (!rates.isEmpty()) {
+            report.append("  inbound/s:");
+            rates.forEach((command, rate) -> report.append(String.format(" %s=%.1f", command, rate)));
+            report.append('\n');
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,29 @@
+package proj;
+
+import java.util.Map;
+
+// What Metrics exposes over JMX, as proj:type=Metrics. Latencies are
+// cumulative since start; message rates cover the last sampling interval.
+public interface MetricsMXBean {
+    LatencyHistogram.Summary getAttackRoundTrip();
+
+    LatencyHistogram.Summary getMessageHandling();
+
+    LatencyHistogram.Summary getSaveGameResults();
+
+    LatencyHistogram.Summary getLeaderboardQuery();
+
+    LatencyHistogram.Summary getHistoryQuery();
+
+    LatencyHistogram.Summary getPingRtt();
+
+    Map<String, Long> getInboundMessages();
+
+    Map<String, Double> getInboundMessagesPerSecond();
+
+    int getActiveConnections();
+
+    long getConnectionsOpened();
+
+    String getReport();
+}
@@ -0,0 +1,212 @@
+package proj;
+import java.util.*;
+import java.util.List;
+
+// Plain game state, free of AWT so it can live in headless matches. Cells are
+// indexes row * size + col on the current variant's board.
+public class Model {
+    // Ship types and sizes
+    public static final int SMALL_SHIP_SIZE = 2;
+    public static final int MEDIUM_SHIP_SIZE = 3;
+    public static final int LARGE_SHIP_SIZE = 4;
+    
+    // Ship counts per player
+    public static final int SMALL_SHIP_COUNT = 1;
+    public static final int MEDIUM_SHIP_COUNT = 2;
+    public static final int LARGE_SHIP_COUNT = 1;
+    
+    // Grid size
+    public static final int GRID_SIZE = 8;
+    
+    // Hits needed to sink the whole standard fleet
+    public static final int TOTAL_SHIP_CELLS = SMALL_SHIP_SIZE * SMALL_SHIP_COUNT +
+                                               MEDIUM_SHIP_SIZE * MEDIUM_SHIP_COUNT +
+                                               LARGE_SHIP_SIZE * LARGE_SHIP_COUNT;
+    
+    // Board size and fleet, standard unless the host picked another
+    public Variant variant = Variant.STANDARD;
+    
+    // Game state
+    public String playerName = "";
+    public String opponentName = "";
+    public boolean isReady = false;
+    public boolean opponentReady = false; // Track opponent readiness
+    public boolean isMyTurn = false;
+    public boolean rematchRequested = false;
+    public boolean opponentRematchRequested = false;
+    public int timeLeft = 30;
+    
+    // Current ship placement
+    public int currentShipSize = 0;
+    public int placedCount = 0;
+    public int[] currentShipCells = new int[LARGE_SHIP_SIZE]; // The first placedCount are set
+    public boolean directionLocked = false;
+    public String direction = "";
+    
+    // Ships tracking
+    public int[] shipsPlacedBySize = new int[LARGE_SHIP_SIZE + 1]; // Indexed by ship size
+    public List<Ship> placedShips = new ArrayList<>(); // Ship id - 1 -> ship
+    
+    // Fleets still afloat, per ship size and in total. Ours counts down as our
+    // ships sink, theirs as SUNK messages arrive, so neither needs a board scan.
+    public int[] myAfloatBySize;
+    public int[] opponentAfloatBySize;
+    public int myShipsAfloat;
+    public int opponentShipsAfloat;
+    
+    // Player's own grid (ship placements and incoming attacks)
+    public Board myBoard = new BitBoard();
+    
+    // Opponent's grid (attack results)
+    public Board opponentBoard = new BitBoard();
+    
+    // Game status
+    public String gameStatus = "Waiting for connection...";
+    public int myScore = 0;
+    public int opponentScore = 0;
+    public int myHits = 0;
+    public int opponentHits = 0;
+    
+    // Track last attack for visualization
+    public int lastAttackRow = -1;
+    public int lastAttackCol = -1;
+    public boolean waitingForResult = false;
+    public boolean gameOver = false;
+    
+    // What a resync after a dropped connection needs (see Snapshot)
+    public boolean gameStarted = false;
+    public boolean iStarted = false;
+    public int turnsPassed = 0; // Misses and timeouts we answered, each handed the turn over
+    public boolean suspended = false; // Connection down, no moves until the snapshots are exchanged
+    
+    public Model() {
+        initializeGrids();
+    }
+    
+    private void initializeGrids() {
+        myBoard.clear();
+        opponentBoard.clear();
+        resetFleets();
+    }
+    
+    private void resetFleets() {
+        myAfloatBySize = new int[variant.getMaxShipSize() + 1];
+        for (int size : variant.getShipSizes()) {
+            myAfloatBySize[size] = variant.countOf(size);
+        }
+        opponentAfloatBySize = myAfloatBySize.clone();
+        myShipsAfloat = variant.getShipCount();
+        opponentShipsAfloat = variant.getShipCount();
+    }
+    
+    // Switch to another board size and fleet; drops any placed ships
+    public void setVariant(Variant variant) {
+        this.variant = variant;
+        myBoard = Board.create(variant);
+        opponentBoard = Board.create(variant);
+        currentShipCells = new int[variant.getMaxShipSize()];
+        shipsPlacedBySize = new int[variant.getMaxShipSize() + 1];
+        placedShips.clear();
+        resetFleets();
+        reset();
+    }
+    
+    public int getSize() {
+        return variant.getSize();
+    }
+    
+    public int index(int r, int c) {
+        return r * variant.getSize() + c;
+    }
+    
+    // Ships of this size still to place
+    public int shipsLeft(int shipSize) {
+        return variant.countOf(shipSize) - shipsPlacedBySize[shipSize];
+    }
+    
+    // Id given to the ship currently being placed
+    public int currentShipId() {
+        return placedShips.size() + 1;
+    }
+    
+    // Why the next cell of the current ship cannot go at (r, c): null if it can,
+    // "" if the click should just be ignored, otherwise a message for the player
+    public String placementError(int r, int c) {
+        if (isReady) return "You're already ready! Clear ships to edit";
+        if (currentShipSize == 0) return "Select a ship type first!";
+        
+        // Already placed the whole ship?
+        if (placedCount >= currentShipSize) return "";
+        
+        // Check if cell already has a ship (this includes cells of the ship being placed)
+        if (myBoard.hasShip(r, c)) return "Cell already occupied!";
+        
+        // First click can go anywhere free
+        if (placedCount == 0) return null;
+        
+        // Second click must be next to the first, in either direction
+        if (placedCount == 1) {
+            int first = currentShipCells[0];
+            int size = variant.getSize();
+            return isAdjacent(first / size, first % size, r, c)
+                    ? null : "Ship must be horizontal or vertical (adjacent cells only)";
+        }
+        
+        // Other clicks must follow the direction
+        int last = currentShipCells[placedCount - 1];
+        int lastRow = last / variant.getSize();
+        int lastCol = last % variant.getSize();
+        if (direction.equals("H")) {
+            return r == lastRow && Math.abs(c - lastCol) == 1 ? null : "Continue placing horizontally!";
+        }
+        return c == lastCol && Math.abs(r - lastRow) == 1 ? null : "Continue placing vertically!";
+    }
+    
+    private static boolean isAdjacent(int r1, int c1, int r2, int c2) {
+        return (Math.abs(r1 - r2) == 1 && c1 == c2) ||
+               (Math.abs(c1 - c2) == 1 && r1 == r2);
+    }
+    
+    public boolean allShipsPlaced() {
+        return placedShips.size() >= variant.getShipCount();
+    }
+    
+    public void reset() {
+        placedCount = 0;
+        currentShipSize = 0; // Reset selection so user must select again
+        directionLocked = false;
+        direction = "";
+    }
+    
+    public void resetAll() {
+        Arrays.fill(shipsPlacedBySize, 0);
+        placedShips.clear();
+        initializeGrids();
+        reset();
+        isReady = false;
+        myHits = 0;
+        opponentHits = 0;
+    }
+    
+    public void resetForRematch() {
+        Arrays.fill(shipsPlacedBySize, 0);
+        placedShips.clear();
+        initializeGrids();
+        reset();
+        isReady = false;
+        opponentReady = false;
+        myHits = 0;
+        opponentHits = 0;
+        isMyTurn = false;
+        timeLeft = 30;
+        rematchRequested = false;
+        opponentRematchRequested = false;
+        lastAttackRow = -1;
+        lastAttackCol = -1;
+        waitingForResult = false;
+        gameOver = false;
+        gameStarted = false;
+        iStarted = false;
+        turnsPassed = 0;
+    }
+}
\ No newline at end of file
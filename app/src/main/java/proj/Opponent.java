@@ -0,0 +1,25 @@
+package proj;
+
+// Where the engine sends its moves. GameSocket implements it for a network
+// opponent; sends between beginBatch and endBatch may be written together.
+public interface Opponent {
+    void sendPlayerName(String name);
+    void sendReady();
+    void sendStartGame(boolean serverStarts);
+    void sendAttack(int row, int col);
+    void sendAttackResult(boolean isHit);
+    void sendSunk(int row, int col, int size, boolean vertical);
+    void sendShip(int row, int col, int size, boolean vertical);
+    void sendWin();
+    void sendRematchRequest();
+    void sendRematchAccept();
+    void sendVariant(Variant variant);
+    void sendSnapshot(byte[] snapshot);
+    // The game cannot continue after a reconnect: the other side is told to end it too
+    void endSession();
+    void beginBatch();
+    void endBatch();
+
+    // The hosting side decides who starts
+    boolean isServer();
+}
@@ -0,0 +1,8 @@
+package proj;
+
+import java.util.SplittableRandom;
+
+// Lays out a full fleet (the sizes in BotBrain.FLEET) on an empty standard board
+public interface PlacementStrategy {
+    void place(BitBoard board, SplittableRandom random);
+}
@@ -0,0 +1,45 @@
+package proj;
+
+// A player's row in the players table
+public class PlayerStats {
+    private final String name;
+    private final int wins;
+    private final int losses;
+    private final int totalHits;
+
+    public PlayerStats(String name, int wins, int losses, int totalHits) {
+        this.name = name;
+        this.wins = wins;
+        this.losses = losses;
+        this.totalHits = totalHits;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    public int getGamesPlayed() {
+        return wins + losses;
+    }
+
+    public double getWinRate() {
+        int games = wins + losses;
+        return games == 0 ? 0 : wins * 100.0 / games;
+    }
+
+    public PlayerStats plus(int winsDelta, int lossesDelta, int hitsDelta) {
+        return new PlayerStats(name, wins + winsDelta, losses + lossesDelta, totalHits + hitsDelta);
+    }
+}
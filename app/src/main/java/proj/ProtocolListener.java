@@ -0,0 +1,32 @@
+package proj;
+
+// Callbacks for decoded protocol messages. WireProtocol calls these with
+// primitive arguments so both the text and binary framings dispatch the
+// same way without building message objects.
+public interface ProtocolListener {
+    void onHello();
+    void onPlayerName(String name);
+    void onReady();
+    void onStart(boolean serverStarts);
+    void onAttack(int row, int col);
+    void onResult(boolean isHit);
+    void onSunk(int row, int col, int size, boolean vertical);
+    void onShip(int row, int col, int size, boolean vertical);
+    void onSeat(int seat);
+    void onWin();
+    void onRematchRequest();
+    void onRematchAccept();
+    void onChat(String message);
+    void onLobby();
+    void onMatched();
+    void onVariant(String spec);
+    void onPing(long token);
+    void onPong(long token);
+    void onSession(long token);
+    void onResume(long token, long received);
+    void onResumed(long received);
+    void onAway();
+    void onSnapshot(byte[] snapshot);
+    void onNoSession();
+    void onUnknown(String command);
+}
@@ -0,0 +1,36 @@
+package proj;
+
+import java.util.SplittableRandom;
+
+// Baseline strategy: fire at a uniformly random cell not yet shot at
+public class RandomTargeting implements TargetingStrategy {
+    private final SplittableRandom random;
+    private long shot;
+
+    public RandomTargeting(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public void reset() {
+        shot = 0;
+    }
+
+    @Override
+    public int chooseShot() {
+        int left = BitBoard.CELLS - Long.bitCount(shot);
+        if (left == 0) return -1;
+
+        // Pick the n-th cell still open
+        long open = ~shot;
+        for (int n = random.nextInt(left); n > 0; n--) {
+            open &= open - 1;
+        }
+        return Long.numberOfTrailingZeros(open);
+    }
+
+    @Override
+    public void recordShot(int cell, boolean isHit) {
+        shot |= 1L << cell;
+    }
+}
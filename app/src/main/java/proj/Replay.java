@@ -0,0 +1,124 @@
+package proj;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// One recorded game, decoded from a replay segment (see ReplayRecorder for the
+// encoding). Moves are kept as parallel arrays: the cell fired at, what it did
+// and the milliseconds since the game started. Whose move it was is not stored;
+// it follows from the rules (a hit keeps the turn, anything else passes it).
+public class Replay {
+    public static final int MISS = 0;
+    public static final int HIT = 1;
+    public static final int SUNK = 2; // A hit that sank a ship
+    public static final int PASS = 3; // The turn timer ran out
+
+    public final long startMillis;
+    public final Variant variant;
+    public final String[] names;
+    public final int starter;
+    public final int winner; // -1 when the game was abandoned
+    public final int[][] ships; // Per seat, two ints a ship: top-left cell, then size << 1 | vertical
+    public final int[] cells;
+    public final int[] kinds;
+    public final long[] times;
+
+    private Replay(long startMillis, Variant variant, String[] names, int starter, int winner,
+                   int[][] ships, int[] cells, int[] kinds, long[] times) {
+        this.startMillis = startMillis;
+        this.variant = variant;
+        this.names = names;
+        this.starter = starter;
+        this.winner = winner;
+        this.ships = ships;
+        this.cells = cells;
+        this.kinds = kinds;
+        this.times = times;
+    }
+
+    public int getMoveCount() {
+        return cells.length;
+    }
+
+    // Seat that made each move, replaying the turn rule from the starter
+    public int[] movers() {
+        int[] movers = new int[cells.length];
+        int seat = starter;
+        for (int i = 0; i < cells.length; i++) {
+            movers[i] = seat;
+            if (kinds[i] == MISS || kinds[i] == PASS) seat = 1 - seat;
+        }
+        return movers;
+    }
+
+    static Replay decode(ByteBuffer body) {
+        long startMillis = readVarLong(body);
+        Variant variant = Variant.parse(readString(body));
+        String[] names = {readString(body), readString(body)};
+        int starter = body.get();
+        int winner = body.get();
+
+        int[][] ships = new int[2][];
+        for (int seat = 0; seat < 2; seat++) {
+            ships[seat] = new int[2 * (int) readVarLong(body)];
+            for (int i = 0; i < ships[seat].length; i++) {
+                ships[seat][i] = (int) readVarLong(body);
+            }
+        }
+
+        boolean wideCells = variant.getSize() > Model.GRID_SIZE;
+        int count = (int) readVarLong(body);
+        int[] cells = new int[count];
+        int[] kinds = new int[count];
+        long[] times = new long[count];
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            int first = body.get() & 0xFF;
+            kinds[i] = first >>> 6;
+            cells[i] = first & 0x3F;
+            if (wideCells) cells[i] |= (int) readVarLong(body) << 6;
+            time += readVarLong(body);
+            times[i] = time;
+        }
+        return new Replay(startMillis, variant, names, starter, winner, ships, cells, kinds, times);
+    }
+
+    static long readVarLong(ByteBuffer buf) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buf.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[(int) readVarLong(buf)];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Print the game move by move. speed 1 is real time, 10 ten times faster,
+    // 0 as fast as the console allows.
+    public void play(PrintStream out, double speed) throws InterruptedException {
+        int size = variant.getSize();
+        out.println(names[0] + " vs " + names[1] + " on " + variant + ", " + names[starter] + " starts");
+        int[] movers = movers();
+        long shown = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (speed > 0 && times[i] > shown) {
+                Thread.sleep((long) ((times[i] - shown) / speed));
+                shown = times[i];
+            }
+            String who = String.format("%7.1fs %s", times[i] / 1000.0, names[movers[i]]);
+            if (kinds[i] == PASS) {
+                out.println(who + " ran out of time");
+            } else {
+                String result = kinds[i] == MISS ? "miss" : kinds[i] == HIT ? "hit" : "hit, sunk";
+                out.println(who + " fires at (" + cells[i] / size + ", " + cells[i] % size + "): " + result);
+            }
+        }
+        out.println(winner < 0 ? "Abandoned" : names[winner] + " wins");
+    }
+}
@@ -0,0 +1,85 @@
+package proj;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Reads the games back out of a replay segment written by ReplayWriter. The
+// segment is mapped read-only and decoded in one pass; a truncated or damaged
+// last record (the writer was killed mid-write) ends the list instead of
+// failing the whole file.
+public class ReplayReader {
+
+    public static List<Replay> read(File file) throws IOException {
+        List<Replay> replays = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] magic = new byte[ReplayWriter.MAGIC.length];
+            if (map.remaining() < magic.length) throw new IOException(file + " is not a replay file");
+            map.get(magic);
+            if (!Arrays.equals(magic, ReplayWriter.MAGIC)) throw new IOException(file + " is not a replay file");
+
+            while (map.remaining() >= 4) {
+                int position = map.position();
+                int length = map.getInt();
+                if (length < 0 || length > map.remaining()) {
+                    System.err.println(file + ": incomplete record at offset " + position + ", stopping");
+                    break;
+                }
+                ByteBuffer body = map.slice(map.position(), length);
+                map.position(map.position() + length);
+                try {
+                    replays.add(Replay.decode(body));
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    System.err.println(file + ": damaged record at offset " + position + ", stopping");
+                    break;
+                }
+            }
+        }
+        return replays;
+    }
+
+    // battleship --replay <segment file> [speed] [game number]: lists the games in
+    // the segment, or plays one back. speed 1 is real time, 0 instant.
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: --replay <file> [speed] [game number]");
+            return;
+        }
+        try {
+            File file = new File(args[0]);
+            List<Replay> replays = read(file);
+            double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+            if (args.length > 2) {
+                int number = Integer.parseInt(args[2]);
+                if (number < 1 || number > replays.size()) {
+                    System.err.println("No game " + number + " in " + file + " (" + replays.size() + " games)");
+                    return;
+                }
+                replays.get(number - 1).play(System.out, speed);
+            } else if (replays.size() == 1) {
+                replays.get(0).play(System.out, speed);
+            } else {
+                System.out.println(replays.size() + " games in " + file);
+                for (int i = 0; i < replays.size(); i++) {
+                    Replay replay = replays.get(i);
+                    String result = replay.winner < 0 ? "abandoned" : replay.names[replay.winner] + " won";
+                    System.out.println(String.format("%5d  %tF %<tT  %s vs %s, %s, %d moves", i + 1,
+                            replay.startMillis, replay.names[0], replay.names[1], result, replay.getMoveCount()));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot read replay: " + e.getMessage());
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: --replay <file> [speed] [game number]");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
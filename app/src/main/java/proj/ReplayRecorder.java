@@ -0,0 +1,155 @@
+package proj;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Builds the replay record of one game as it is played. A move is one byte,
+// the result in the top two bits and the cell (row * size + col) in the low
+// six, which holds every cell of the standard 8x8 board; larger boards follow
+// it with the rest of the cell as a varint. Then comes the time since the
+// previous move in milliseconds, as a varint: one byte under 128 ms, two under
+// 16 s. A standard game is about 3 bytes a move.
+//
+// Record body: varint start millis, variant spec, both names, u8 starter,
+// u8 winner (0xFF abandoned), each seat's revealed ships (varint count, then
+// varint top-left cell and varint size << 1 | vertical), varint move count,
+// moves. Strings are a varint length and UTF-8.
+public class ReplayRecorder {
+    private final Variant variant;
+    private final boolean wideCells;
+    private final String[] names = {"", ""};
+    private long startMillis;
+    private long lastMillis;
+    private int starter;
+    private int winner = -1;
+    private final int[][] ships = new int[2][];
+    private final int[] shipCounts = new int[2];
+
+    // Encoded moves
+    private byte[] moves = new byte[256];
+    private int length = 0;
+    private int moveCount = 0;
+    private int lastMoveAt = -1; // Offset of the last move's first byte
+    private int pendingCell = -1; // Attack waiting for its result, PASS_CELL for a timeout
+    private long pendingMillis;
+
+    private static final int PASS_CELL = -2;
+
+    public ReplayRecorder(Variant variant) {
+        this.variant = variant;
+        this.wideCells = variant.getSize() > Model.GRID_SIZE;
+        ships[0] = new int[2 * variant.getShipCount()];
+        ships[1] = new int[2 * variant.getShipCount()];
+    }
+
+    public void start(String name0, String name1, int starter, long nowMillis) {
+        names[0] = name0;
+        names[1] = name1;
+        this.starter = starter;
+        startMillis = nowMillis;
+        lastMillis = nowMillis;
+    }
+
+    // Names can change after the game starts, the last one sent is kept
+    public void name(int seat, String name) {
+        names[seat] = name;
+    }
+
+    public void attack(int row, int col, long nowMillis) {
+        int size = variant.getSize();
+        if (row < 0 || col < 0) {
+            pendingCell = PASS_CELL;
+        } else if (row < size && col < size) {
+            pendingCell = row * size + col;
+        } else {
+            pendingCell = -1; // Off the board, answered as a miss but not a move worth keeping
+        }
+        pendingMillis = nowMillis;
+    }
+
+    public void result(boolean isHit) {
+        if (pendingCell == -1) return;
+        if (pendingCell == PASS_CELL) {
+            addMove(Replay.PASS, 0);
+        } else {
+            addMove(isHit ? Replay.HIT : Replay.MISS, pendingCell);
+        }
+        pendingCell = -1;
+    }
+
+    // The last hit sank a ship
+    public void sunk() {
+        if (lastMoveAt >= 0 && (moves[lastMoveAt] & 0xFF) >>> 6 == Replay.HIT) {
+            moves[lastMoveAt] = (byte) (Replay.SUNK << 6 | (moves[lastMoveAt] & 0x3F));
+        }
+    }
+
+    public void win(int seat) {
+        if (winner < 0) winner = seat;
+    }
+
+    public void ship(int seat, int row, int col, int size, boolean vertical) {
+        if (2 * shipCounts[seat] == ships[seat].length) return; // More than the fleet, ignore
+        ships[seat][2 * shipCounts[seat]] = row * variant.getSize() + col;
+        ships[seat][2 * shipCounts[seat] + 1] = size << 1 | (vertical ? 1 : 0);
+        shipCounts[seat]++;
+    }
+
+    public boolean hasMoves() {
+        return moveCount > 0;
+    }
+
+    private void addMove(int kind, int cell) {
+        ensureCapacity(1 + 5 + 10);
+        lastMoveAt = length;
+        moves[length++] = (byte) (kind << 6 | (cell & 0x3F));
+        if (wideCells) length = putVarLong(moves, length, cell >>> 6);
+        long now = Math.max(pendingMillis, lastMillis);
+        length = putVarLong(moves, length, now - lastMillis);
+        lastMillis = now;
+        moveCount++;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > moves.length) moves = Arrays.copyOf(moves, Math.max(moves.length * 2, length + extra));
+    }
+
+    // The finished record body
+    public byte[] toRecord() {
+        byte[] variantSpec = variant.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] name0 = names[0].getBytes(StandardCharsets.UTF_8);
+        byte[] name1 = names[1].getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[10 + 3 * 5 + variantSpec.length + name0.length + name1.length + 2
+                + 2 * 5 + (shipCounts[0] + shipCounts[1]) * 10 + 5 + length];
+        int n = putVarLong(out, 0, startMillis);
+        n = putString(out, n, variantSpec);
+        n = putString(out, n, name0);
+        n = putString(out, n, name1);
+        out[n++] = (byte) starter;
+        out[n++] = (byte) winner;
+        for (int seat = 0; seat < 2; seat++) {
+            n = putVarLong(out, n, shipCounts[seat]);
+            for (int i = 0; i < 2 * shipCounts[seat]; i++) {
+                n = putVarLong(out, n, ships[seat][i]);
+            }
+        }
+        n = putVarLong(out, n, moveCount);
+        System.arraycopy(moves, 0, out, n, length);
+        return Arrays.copyOf(out, n + length);
+    }
+
+    private static int putString(byte[] out, int offset, byte[] bytes) {
+        offset = putVarLong(out, offset, bytes.length);
+        System.arraycopy(bytes, 0, out, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    static int putVarLong(byte[] out, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[offset++] = (byte) value;
+        return offset;
+    }
+}
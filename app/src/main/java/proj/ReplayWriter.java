@@ -0,0 +1,188 @@
+package proj;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Appends finished game records to one segment file per day,
+// replays-YYYY-MM-DD.bsr in the replay directory. Like ResultWriter, callers
+// only enqueue; a background thread does the file I/O so the server's selector
+// thread never waits on the disk.
+//
+// Segment layout: the 8-byte header (magic, two zero bytes) followed by records
+// [i32 body length][body]. Records are only ever appended. A crash or a failed
+// write can leave a torn record at the end, which ReplayReader stops at; so
+// before appending to an existing segment it is cut back to its last complete
+// record, otherwise every game after the torn one would be unreadable.
+public class ReplayWriter {
+    static final byte[] MAGIC = {'B', 'S', 'R', 'P', 'L', '1', 0, 0};
+    static final String SEGMENT_PREFIX = "replays-";
+    static final String SEGMENT_SUFFIX = ".bsr";
+    private static final int CAPACITY = 10_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File dir;
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Only touched by the writer thread
+    private LocalDate segmentDay;
+    private OutputStream out;
+
+    // Statistics
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public ReplayWriter(File dir) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        this.dir = dir;
+        this.writerThread = new Thread(this::run, "replay-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        System.out.println("Recording replays to " + dir);
+    }
+
+    // ~/.battleship/replays unless battleship.data points elsewhere
+    public static File defaultDir() {
+        String dir = System.getProperty("battleship.data", System.getProperty("user.home") + File.separator + ".battleship");
+        return new File(dir, "replays");
+    }
+
+    // Never blocks: when the queue is full the record is dropped and counted
+    public boolean submit(byte[] record) {
+        if (!running || !queue.offer(record)) {
+            dropped.incrementAndGet();
+            System.err.println("Replay queue full, replay not saved.");
+            return false;
+        }
+        return true;
+    }
+
+    private void run() {
+        List<byte[]> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                byte[] first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        closeSegment();
+    }
+
+    private void write(List<byte[]> batch) {
+        try {
+            OutputStream segment = segmentFor(LocalDate.now(ZoneId.systemDefault()));
+            for (byte[] record : batch) {
+                int n = record.length;
+                segment.write(new byte[]{(byte) (n >>> 24), (byte) (n >>> 16), (byte) (n >>> 8), (byte) n});
+                segment.write(record);
+                bytes.addAndGet(4 + n);
+            }
+            // One flush per batch, so a busy server writes many games per system call
+            segment.flush();
+            written.addAndGet(batch.size());
+        } catch (IOException e) {
+            dropped.addAndGet(batch.size());
+            System.err.println("Could not write " + batch.size() + " replay(s): " + e.getMessage());
+            closeSegment();
+        }
+    }
+
+    private OutputStream segmentFor(LocalDate day) throws IOException {
+        if (out != null && day.equals(segmentDay)) return out;
+        closeSegment();
+        File file = new File(dir, SEGMENT_PREFIX + day + SEGMENT_SUFFIX);
+        boolean isNew = !file.exists() || repair(file) == 0;
+        out = new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_SIZE);
+        segmentDay = day;
+        if (isNew) out.write(MAGIC);
+        return out;
+    }
+
+    // Truncate the segment after its last complete record, returns the new length
+    // (0 when not even the header was complete, so it is written again)
+    private static long repair(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long valid = 0;
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length);
+            if (size >= MAGIC.length) {
+                channel.read(header, 0);
+                if (!Arrays.equals(header.array(), MAGIC)) throw new IOException(file + " is not a replay file");
+                valid = MAGIC.length;
+                ByteBuffer length = ByteBuffer.allocate(4);
+                while (valid + 4 <= size) {
+                    length.clear();
+                    channel.read(length, valid);
+                    int n = length.getInt(0);
+                    if (n < 0 || valid + 4 + n > size) break;
+                    valid += 4 + n;
+                }
+            }
+            if (valid < size) {
+                System.err.println("Cutting a torn record off " + file + " (" + (size - valid) + " bytes)");
+                channel.truncate(valid);
+            }
+            return valid;
+        }
+    }
+
+    private void closeSegment() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        out = null;
+        segmentDay = null;
+    }
+
+    // Stop accepting records and wait for the queue to be written
+    public void close() {
+        running = false;
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,163 @@
+package proj;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Write-behind persistence for game results. Callers (the EDT, socket threads)
+// only enqueue; a single background thread drains the queue and commits
+// whatever has accumulated as one batch (one transaction in MySQL, one
+// header update in the local store). A batch that fails to commit is kept and
+// retried with backoff ahead of anything submitted since, so games are stored
+// in the order they finished; newer results wait in the queue meanwhile. At
+// shutdown a failed batch gets one last try before it is dropped.
+public class ResultWriter {
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long MIN_RETRY_MS = 250;
+    private static final long MAX_RETRY_MS = 10_000;
+
+    private final GameStore store;
+    private final BlockingQueue<GameResult> queue;
+    private final int batchSize;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    private long retryMs = 0; // Backoff before the next commit, 0 while commits succeed
+
+    // Statistics
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong totalCommitNanos = new AtomicLong();
+    private volatile long lastCommitNanos = 0;
+    private volatile long maxCommitNanos = 0;
+
+    public ResultWriter(GameStore store) {
+        this(store, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public ResultWriter(GameStore store, int capacity, int batchSize) {
+        this.store = store;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.writerThread = new Thread(this::run, "result-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // Never blocks: when the queue is full the result is dropped and counted
+    public boolean submit(GameResult result) {
+        if (!running || !queue.offer(result)) {
+            dropped.incrementAndGet();
+            System.err.println("Result queue full, game result not saved.");
+            return false;
+        }
+        return true;
+    }
+
+    private void run() {
+        List<GameResult> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    GameResult first = queue.poll(200, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                } else {
+                    backOff(); // The failed batch goes again, newer results behind it
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                if (commit(batch)) {
+                    batch.clear();
+                } else if (!running) {
+                    // Already had its last try at shutdown
+                    dropped.addAndGet(batch.size());
+                    System.err.println("Database not available, " + batch.size() + " game result(s) not saved.");
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Wait out the retry delay, cut short by close() so the last try happens promptly
+    private void backOff() throws InterruptedException {
+        long deadline = System.nanoTime() + retryMs * 1_000_000;
+        long remaining;
+        while (running && (remaining = (deadline - System.nanoTime()) / 1_000_000) > 0) {
+            Thread.sleep(Math.min(remaining, 50));
+        }
+    }
+
+    private boolean commit(List<GameResult> batch) {
+        long start = System.nanoTime();
+        boolean saved = store.saveGameResults(batch);
+        long elapsed = System.nanoTime() - start;
+        Metrics.get().saveGameResults.record(elapsed);
+
+        if (saved) {
+            committed.addAndGet(batch.size());
+            retryMs = 0;
+        } else {
+            retryMs = retryMs == 0 ? MIN_RETRY_MS : Math.min(retryMs * 2, MAX_RETRY_MS);
+        }
+        batches.incrementAndGet();
+        totalCommitNanos.addAndGet(elapsed);
+        lastCommitNanos = elapsed;
+        if (elapsed > maxCommitNanos) maxCommitNanos = elapsed;
+
+        if (saved) {
+            System.out.println(String.format("Committed %d game result(s) in %.1f ms (queue depth %d)",
+                    batch.size(), elapsed / 1_000_000.0, queue.size()));
+        } else if (running) {
+            System.err.println("Database not available, retrying " + batch.size()
+                    + " game result(s) in " + retryMs + " ms.");
+        }
+        return saved;
+    }
+
+    // Stop accepting results and wait for the queue to be written
+    public void close() {
+        // The writer polls with a short timeout, so it notices this and drains the queue
+        running = false;
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getCommitted() {
+        return committed.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public double getLastCommitMillis() {
+        return lastCommitNanos / 1_000_000.0;
+    }
+
+    public double getMaxCommitMillis() {
+        return maxCommitNanos / 1_000_000.0;
+    }
+
+    public double getAverageCommitMillis() {
+        long b = batches.get();
+        return b == 0 ? 0 : totalCommitNanos.get() / 1_000_000.0 / b;
+    }
+}
@@ -0,0 +1,227 @@
+package proj;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Versioned schema for the battleship database. The applied version is kept in
+// schema_version and every missing step runs in order on startup, so databases
+// created by older builds are upgraded in place. MySQL commits DDL implicitly,
+// so each step checks what already exists and is safe to re-run after a crash.
+public class SchemaMigrations {
+    private static final String LOCK_NAME = "battleship_schema";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+    private interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private static class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = new ArrayList<>();
+
+    static {
+        MIGRATIONS.add(new Migration(1, "create players and games tables", SchemaMigrations::createTables));
+        MIGRATIONS.add(new Migration(2, "unique key on players.name", SchemaMigrations::uniquePlayerNames));
+        MIGRATIONS.add(new Migration(3, "index games by date", connection ->
+                addIndex(connection, "games", "idx_games_date", "(game_date, id)")));
+        MIGRATIONS.add(new Migration(4, "stored win_rate and ranking index", SchemaMigrations::rankingColumns));
+        MIGRATIONS.add(new Migration(5, "index games by player and date", connection -> {
+            addIndex(connection, "games", "idx_games_player1", "(player1_name, game_date, id)");
+            addIndex(connection, "games", "idx_games_player2", "(player2_name, game_date, id)");
+        }));
+    }
+
+    private SchemaMigrations() {
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    public static void migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT NOT NULL PRIMARY KEY," +
+                    "description VARCHAR(200)," +
+                    "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                    ")");
+        }
+
+        // Several processes may start against the same database at once
+        if (!acquireLock(connection)) {
+            throw new SQLException("Timed out waiting for the schema migration lock");
+        }
+        try {
+            int current = currentVersion(connection);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version <= current) continue;
+
+                System.out.println("Applying schema migration " + migration.version + ": " + migration.description);
+                migration.step.apply(connection);
+                try (PreparedStatement stmt = connection.prepareStatement(
+                        "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                    stmt.setInt(1, migration.version);
+                    stmt.setString(2, migration.description);
+                    stmt.executeUpdate();
+                }
+            }
+        } finally {
+            releaseLock(connection);
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Migrations
+
+    private static void createTables(Connection connection) throws SQLException {
+        String createPlayersTable = "CREATE TABLE IF NOT EXISTS players (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY," +
+                "name VARCHAR(100) NOT NULL," +
+                "wins INT DEFAULT 0," +
+                "losses INT DEFAULT 0," +
+                "total_hits INT DEFAULT 0," +
+                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                ")";
+
+        String createGamesTable = "CREATE TABLE IF NOT EXISTS games (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY," +
+                "player1_name VARCHAR(100) NOT NULL," +
+                "player2_name VARCHAR(100) NOT NULL," +
+                "winner VARCHAR(100)," +
+                "player1_hits INT," +
+                "player2_hits INT," +
+                "game_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                ")";
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(createPlayersTable);
+            stmt.execute(createGamesTable);
+        }
+    }
+
+    // Tables created before the unique key existed may hold duplicate player rows:
+    // fold them into one row per name, then add the key
+    private static void uniquePlayerNames(Connection connection) throws SQLException {
+        if (hasUniqueIndexOn(connection, "players", "name")) return;
+
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TEMPORARY TABLE players_merged AS " +
+                    "SELECT name, SUM(wins) AS wins, SUM(losses) AS losses, SUM(total_hits) AS total_hits, " +
+                    "MIN(created_at) AS created_at FROM players GROUP BY name HAVING COUNT(*) > 1");
+            stmt.executeUpdate("DELETE p FROM players p JOIN players_merged m ON p.name = m.name");
+            stmt.executeUpdate("INSERT INTO players (name, wins, losses, total_hits, created_at) " +
+                    "SELECT name, wins, losses, total_hits, created_at FROM players_merged");
+            stmt.execute("DROP TEMPORARY TABLE players_merged");
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        addIndex(connection, "players", "uk_players_name", "(name)", true);
+    }
+
+    // The leaderboard orders by wins then win rate; storing win_rate lets one
+    // index serve that ORDER BY ... LIMIT without computing it for every row
+    private static void rankingColumns(Connection connection) throws SQLException {
+        if (!hasColumn(connection, "players", "win_rate")) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("ALTER TABLE players ADD COLUMN win_rate DOUBLE AS " +
+                        "(CASE WHEN wins + losses = 0 THEN 0 ELSE wins * 100.0 / (wins + losses) END) STORED");
+            }
+        }
+        addIndex(connection, "players", "idx_players_ranking", "(wins, win_rate)");
+    }
+
+    // Helpers
+
+    private static void addIndex(Connection connection, String table, String index, String columns) throws SQLException {
+        addIndex(connection, table, index, columns, false);
+    }
+
+    private static void addIndex(Connection connection, String table, String index, String columns,
+                                 boolean unique) throws SQLException {
+        if (hasIndex(connection, table, index)) return;
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD " + (unique ? "UNIQUE " : "") + "INDEX " + index + " " + columns);
+        }
+    }
+
+    private static boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT 1 FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ? LIMIT 1")) {
+            stmt.setString(1, table);
+            stmt.setString(2, index);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static boolean hasUniqueIndexOn(Connection connection, String table, String column) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT 1 FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ? AND non_unique = 0 LIMIT 1")) {
+            stmt.setString(1, table);
+            stmt.setString(2, column);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT 1 FROM information_schema.columns " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ? LIMIT 1")) {
+            stmt.setString(1, table);
+            stmt.setString(2, column);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static boolean acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void releaseLock(Connection connection) {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, LOCK_NAME);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            // Released anyway when the connection closes
+        }
+    }
+}
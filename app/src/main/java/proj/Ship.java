@@ -0,0 +1,55 @@
+package proj;
+
+// One placed ship: its cells (board indexes, in placement order) and how many of
+// them have been hit. Model keeps ships in id order, so the ship under a cell is
+// placedShips.get(board.shipIdAt(r, c) - 1) and a hit updates only that ship.
+public class Ship {
+    private String type;
+    private int size;
+    private int[] cells;
+    private int hits;
+    
+    public Ship(String type, int size, int[] cells) {
+        this.type = type;
+        this.size = size;
+        this.cells = cells;
+        this.hits = 0;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public int[] getCells() {
+        return cells;
+    }
+    
+    // Count one more hit, returns true if it sank the ship
+    public boolean hit() {
+        if (hits < size) hits++;
+        return isSunk();
+    }
+    
+    public boolean isSunk() {
+        return hits >= size;
+    }
+    
+    public int getHits() {
+        return hits;
+    }
+    
+    // Top-left cell; with isVertical() and the size this is all the SUNK message carries
+    public int getFirstCell() {
+        int first = cells[0];
+        for (int cell : cells) first = Math.min(first, cell);
+        return first;
+    }
+    
+    public boolean isVertical(int boardSize) {
+        return cells.length > 1 && Math.abs(cells[1] - cells[0]) == boardSize;
+    }
+}
@@ -0,0 +1,67 @@
+package proj;
+
+// Totals from a batch of simulated games between player A and player B.
+// Immutable; partial results from parallel workers are combined with plus().
+public class SimulationResult {
+    private final long games;
+    private final long winsA;
+    private final long winningShots;
+    private final long elapsedNanos;
+
+    public SimulationResult(long games, long winsA, long winningShots, long elapsedNanos) {
+        this.games = games;
+        this.winsA = winsA;
+        this.winningShots = winningShots;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public SimulationResult plus(SimulationResult other) {
+        return new SimulationResult(games + other.games, winsA + other.winsA,
+                winningShots + other.winningShots, Math.max(elapsedNanos, other.elapsedNanos));
+    }
+
+    public SimulationResult withElapsedNanos(long nanos) {
+        return new SimulationResult(games, winsA, winningShots, nanos);
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getWinsA() {
+        return winsA;
+    }
+
+    public double getWinRateA() {
+        return games == 0 ? 0 : (double) winsA / games;
+    }
+
+    // Shots fired by the winner, averaged over all games
+    public double getMeanShotsToWin() {
+        return games == 0 ? 0 : (double) winningShots / games;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    // Wilson score interval for A's win rate, z = 1.96 for 95%.
+    // Returns {low, high}.
+    public double[] getWinRateInterval(double z) {
+        if (games == 0) return new double[]{0, 1};
+        double n = games;
+        double p = getWinRateA();
+        double z2 = z * z;
+        double center = (p + z2 / (2 * n)) / (1 + z2 / n);
+        double margin = z * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)) / (1 + z2 / n);
+        return new double[]{Math.max(0, center - margin), Math.min(1, center + margin)};
+    }
+
+    @Override
+    public String toString() {
+        double[] interval = getWinRateInterval(1.96);
+        return String.format("%d games, %.0f games/s, A wins %.2f%% (95%% CI %.2f-%.2f%%), mean shots to win %.2f",
+                games, getGamesPerSecond(), 100 * getWinRateA(), 100 * interval[0], 100 * interval[1],
+                getMeanShotsToWin());
+    }
+}
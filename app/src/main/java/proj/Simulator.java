@@ -0,0 +1,141 @@
+package proj;
+
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+// Headless self-play: complete games between two strategy pairs under the same
+// rules as Controller. The starting player is chosen at random, a hit keeps the
+// turn, and a player wins once their hits reach Model.TOTAL_SHIP_CELLS.
+//
+// Games are split into fixed chunks run on the common fork/join pool. Each chunk
+// has its own seed drawn up front, so a run is reproducible from its seed
+// whatever the number of cores.
+public class Simulator {
+    private static final int CHUNK_SIZE = 10_000;
+
+    // One side of the match: how it shoots and how it lays out its fleet
+    public static class Player {
+        final String name;
+        final Function<SplittableRandom, TargetingStrategy> targeting;
+        final PlacementStrategy placement;
+
+        public Player(String name, Function<SplittableRandom, TargetingStrategy> targeting, PlacementStrategy placement) {
+            this.name = name;
+            this.targeting = targeting;
+            this.placement = placement;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Player playerA;
+    private final Player playerB;
+
+    public Simulator(Player playerA, Player playerB) {
+        this.playerA = playerA;
+        this.playerB = playerB;
+    }
+
+    public SimulationResult run(long games, long seed) {
+        int chunks = (int) ((games + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        SplittableRandom root = new SplittableRandom(seed);
+        long[] seeds = new long[chunks];
+        for (int i = 0; i < chunks; i++) seeds[i] = root.nextLong();
+
+        long start = System.nanoTime();
+        SimulationResult result = IntStream.range(0, chunks).parallel()
+                .mapToObj(i -> runChunk(Math.min(CHUNK_SIZE, games - (long) i * CHUNK_SIZE), seeds[i]))
+                .reduce(new SimulationResult(0, 0, 0, 0), SimulationResult::plus);
+        return result.withElapsedNanos(System.nanoTime() - start);
+    }
+
+    // Sequential games with strategies and boards reused between them
+    private SimulationResult runChunk(long games, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        TargetingStrategy targetingA = playerA.targeting.apply(random.split());
+        TargetingStrategy targetingB = playerB.targeting.apply(random.split());
+        BitBoard boardA = new BitBoard();
+        BitBoard boardB = new BitBoard();
+
+        long winsA = 0;
+        long winningShots = 0;
+        for (long g = 0; g < games; g++) {
+            boardA.clear();
+            boardB.clear();
+            playerA.placement.place(boardA, random);
+            playerB.placement.place(boardB, random);
+            targetingA.reset();
+            targetingB.reset();
+
+            int shotsA = 0;
+            int shotsB = 0;
+            boolean turnA = random.nextBoolean();
+            while (true) {
+                if (turnA) {
+                    shotsA++;
+                    if (fire(targetingA, boardB)) {
+                        if (boardB.hitCount() >= Model.TOTAL_SHIP_CELLS) {
+                            winsA++;
+                            winningShots += shotsA;
+                            break;
+                        }
+                    } else {
+                        turnA = false;
+                    }
+                } else {
+                    shotsB++;
+                    if (fire(targetingB, boardA)) {
+                        if (boardA.hitCount() >= Model.TOTAL_SHIP_CELLS) {
+                            winningShots += shotsB;
+                            break;
+                        }
+                    } else {
+                        turnA = true;
+                    }
+                }
+            }
+        }
+        return new SimulationResult(games, winsA, winningShots, 0);
+    }
+
+    // One shot, true on a hit. A strategy with nothing left to shoot passes,
+    // like a timed-out turn.
+    private static boolean fire(TargetingStrategy targeting, BitBoard target) {
+        int cell = targeting.chooseShot();
+        if (cell < 0) return false;
+        int r = cell / Model.GRID_SIZE;
+        int c = cell % Model.GRID_SIZE;
+        boolean isHit = target.receiveAttack(r, c);
+        targeting.recordShot(cell, isHit);
+        if (isHit && target.isSunk(target.shipIdAt(r, c))) {
+            targeting.recordSunk(target.getShipMask(target.shipIdAt(r, c)));
+        }
+        return isHit;
+    }
+
+    public static Player densityBot() {
+        return new Player("density", BotBrain::new, BotBrain::placeFleet);
+    }
+
+    public static Player randomBot() {
+        return new Player("random", RandomTargeting::new, BotBrain::placeFleet);
+    }
+
+    // java proj.Main --simulate [games] [seed]
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+
+        Player[][] matchups = {
+                {densityBot(), densityBot()},
+                {densityBot(), randomBot()},
+        };
+        for (Player[] matchup : matchups) {
+            SimulationResult result = new Simulator(matchup[0], matchup[1]).run(games, seed);
+            System.out.println(matchup[0].getName() + " vs " + matchup[1].getName() + ": " + result);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package proj;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// What one player knows for certain after a dropped connection: the facts it
+// is the authority on. That is its own board (every attack it has answered,
+// hit or miss, and which of its ships sank), how many turns it has handed
+// over by answering a miss or a timeout, and its own readiness, name and
+// rematch request. Its view of the other board is not sent; it only ever
+// learns that board from the other side's answers, so the other snapshot is
+// the truth about it.
+//
+// Encoding: u8 flags, then varints (as ReplayRecorder): name, turns passed,
+// hit cells and miss cells (each a count, then ascending cells as deltas),
+// sunk ships (a count, then top-left cell and size << 1 | vertical). A
+// standard game is well under 100 bytes.
+public class Snapshot {
+    static final int READY = 1;
+    static final int STARTED = 2;
+    static final int STARTER = 4; // The sender had the first turn
+    static final int GAME_OVER = 8;
+    static final int REMATCH = 16;
+
+    public final int flags;
+    public final String name;
+    public final int turnsPassed;
+    public final int[] hits;
+    public final int[] misses;
+    public final int[] sunkShips; // Two ints a ship, as in Replay.ships
+
+    private Snapshot(int flags, String name, int turnsPassed, int[] hits, int[] misses, int[] sunkShips) {
+        this.flags = flags;
+        this.name = name;
+        this.turnsPassed = turnsPassed;
+        this.hits = hits;
+        this.misses = misses;
+        this.sunkShips = sunkShips;
+    }
+
+    public boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    public int getSunkCount() {
+        return sunkShips.length / 2;
+    }
+
+    // Our side of the game, from the engine's model
+    public static byte[] encode(Model model) {
+        int flags = (model.isReady ? READY : 0) | (model.gameStarted ? STARTED : 0)
+                | (model.iStarted ? STARTER : 0) | (model.gameOver ? GAME_OVER : 0)
+                | (model.rematchRequested ? REMATCH : 0);
+
+        // The shots our board has recorded, sorted for the delta encoding; the
+        // cost follows the shots fired, not the size of the board
+        int size = model.getSize();
+        CellList hits = new CellList();
+        CellList misses = new CellList();
+        model.myBoard.forEachAttack((cell, hit) -> (hit ? hits : misses).add(cell));
+        Arrays.sort(hits.cells, 0, hits.count);
+        Arrays.sort(misses.cells, 0, misses.count);
+        int hitCount = hits.count;
+        int missCount = misses.count;
+
+        byte[] name = model.playerName.getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[1 + 5 + name.length + 5 + 2 * 5 + (hitCount + missCount) * 5
+                + 5 + model.placedShips.size() * 10];
+        out[0] = (byte) flags;
+        int n = ReplayRecorder.putVarLong(out, 1, name.length);
+        System.arraycopy(name, 0, out, n, name.length);
+        n += name.length;
+        n = ReplayRecorder.putVarLong(out, n, model.turnsPassed);
+        n = putCells(out, n, hits.cells, hitCount);
+        n = putCells(out, n, misses.cells, missCount);
+
+        int sunk = 0;
+        for (Ship ship : model.placedShips) {
+            if (ship.isSunk()) sunk++;
+        }
+        n = ReplayRecorder.putVarLong(out, n, sunk);
+        for (Ship ship : model.placedShips) {
+            if (!ship.isSunk()) continue;
+            n = ReplayRecorder.putVarLong(out, n, ship.getFirstCell());
+            n = ReplayRecorder.putVarLong(out, n, ship.getSize() << 1 | (ship.isVertical(size) ? 1 : 0));
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    // Growable list of cell indexes
+    private static class CellList {
+        int[] cells = new int[16];
+        int count;
+
+        void add(int cell) {
+            if (count == cells.length) cells = Arrays.copyOf(cells, count * 2);
+            cells[count++] = cell;
+        }
+    }
+
+    private static int putCells(byte[] out, int n, int[] cells, int count) {
+        n = ReplayRecorder.putVarLong(out, n, count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            n = ReplayRecorder.putVarLong(out, n, cells[i] - previous);
+            previous = cells[i];
+        }
+        return n;
+    }
+
+    // Throws IllegalArgumentException when the bytes are not a snapshot for a board of this size
+    public static Snapshot decode(byte[] data, int boardSize) {
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(data);
+            int flags = buf.get() & 0xFF;
+            byte[] name = new byte[(int) Replay.readVarLong(buf)];
+            buf.get(name);
+            int turnsPassed = (int) Replay.readVarLong(buf);
+            long cells = (long) boardSize * boardSize;
+            int[] hits = readCells(buf, cells);
+            int[] misses = readCells(buf, cells);
+            int sunk = (int) Replay.readVarLong(buf);
+            if (sunk < 0 || sunk > Variant.MAX_SHIPS) throw new IllegalArgumentException("Bad ship count " + sunk);
+            int[] sunkShips = new int[2 * sunk];
+            for (int i = 0; i < sunkShips.length; i++) {
+                sunkShips[i] = (int) Replay.readVarLong(buf);
+            }
+            return new Snapshot(flags, new String(name, StandardCharsets.UTF_8), turnsPassed, hits, misses, sunkShips);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Malformed snapshot: " + e, e);
+        }
+    }
+
+    private static int[] readCells(ByteBuffer buf, long boardCells) {
+        long count = Replay.readVarLong(buf);
+        if (count < 0 || count > boardCells || count > buf.remaining()) {
+            throw new IllegalArgumentException("Bad cell count " + count);
+        }
+        int[] cells = new int[(int) count];
+        long cell = 0;
+        for (int i = 0; i < cells.length; i++) {
+            cell += Replay.readVarLong(buf);
+            if (cell >= boardCells) throw new IllegalArgumentException("Cell " + cell + " off the board");
+            cells[i] = (int) cell;
+        }
+        return cells;
+    }
+}
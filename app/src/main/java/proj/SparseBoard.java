@@ -0,0 +1,150 @@
+package proj;
+
+import java.util.Arrays;
+
+// Board for non-standard sizes, up to Variant.MAX_SIZE per side. Only ship
+// cells and attacked cells are stored, each in an open-addressing table keyed
+// by cell index (r * size + c), so a 1000x1000 board with a few ships and a few
+// hundred shots takes a few kilobytes. Per-ship cell and hit counts keep sunk
+// checks constant time.
+public class SparseBoard implements Board {
+    private static final int HIT = 1;
+    private static final int MISS = 2;
+
+    private final int size;
+    private final CellMap ships = new CellMap();   // cell -> ship id
+    private final CellMap attacks = new CellMap(); // cell -> HIT or MISS
+    private final int[] shipCells = new int[Variant.MAX_SHIPS + 1];
+    private final int[] shipHits = new int[Variant.MAX_SHIPS + 1];
+    private int hits;
+    private int shipCellsHit;
+
+    public SparseBoard(int size) {
+        if (size < 1 || size > Variant.MAX_SIZE) {
+            throw new IllegalArgumentException("Board size out of range: " + size);
+        }
+        this.size = size;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    private int index(int r, int c) {
+        return r * size + c;
+    }
+
+    // Ship placement
+    @Override
+    public void placeShip(int r, int c, int shipId) {
+        int cell = index(r, c);
+        int previous = ships.get(cell);
+        if (previous != 0) shipCells[previous]--;
+        ships.put(cell, shipId);
+        shipCells[shipId]++;
+    }
+
+    @Override
+    public void removeShip(int r, int c) {
+        int shipId = ships.remove(index(r, c));
+        if (shipId != 0) shipCells[shipId]--;
+    }
+
+    @Override
+    public boolean hasShip(int r, int c) {
+        return ships.get(index(r, c)) != 0;
+    }
+
+    @Override
+    public int shipIdAt(int r, int c) {
+        return ships.get(index(r, c));
+    }
+
+    // Attacks
+    @Override
+    public boolean isAttacked(int r, int c) {
+        return attacks.get(index(r, c)) != 0;
+    }
+
+    @Override
+    public boolean isHit(int r, int c) {
+        return attacks.get(index(r, c)) == HIT;
+    }
+
+    @Override
+    public boolean isMiss(int r, int c) {
+        return attacks.get(index(r, c)) == MISS;
+    }
+
+    @Override
+    public boolean receiveAttack(int r, int c) {
+        int cell = index(r, c);
+        if (attacks.get(cell) != 0) {
+            return false; // Repeated attack never counts twice
+        }
+        int shipId = ships.get(cell);
+        if (shipId != 0) {
+            attacks.put(cell, HIT);
+            hits++;
+            shipHits[shipId]++;
+            shipCellsHit++;
+            return true;
+        }
+        attacks.put(cell, MISS);
+        return false;
+    }
+
+    @Override
+    public void markHit(int r, int c) {
+        int cell = index(r, c);
+        if (attacks.get(cell) == HIT) return;
+        attacks.put(cell, HIT);
+        hits++;
+    }
+
+    @Override
+    public void markMiss(int r, int c) {
+        attacks.put(index(r, c), MISS);
+    }
+
+    @Override
+    public void forEachAttack(AttackVisitor visitor) {
+        attacks.forEach((cell, result) -> visitor.visit(cell, result == HIT));
+    }
+
+    @Override
+    public boolean isSunk(int shipId) {
+        return shipCells[shipId] > 0 && shipHits[shipId] >= shipCells[shipId];
+    }
+
+    @Override
+    public boolean allShipsSunk() {
+        return ships.count > 0 && shipCellsHit >= ships.count;
+    }
+
+    @Override
+    public int hitCount() {
+        return hits;
+    }
+
+    @Override
+    public int shipCellCount() {
+        return ships.count;
+    }
+
+    @Override
+    public void clearShips() {
+        ships.clear();
+        Arrays.fill(shipCells, 0);
+        Arrays.fill(shipHits, 0);
+        shipCellsHit = 0;
+    }
+
+    @Override
+    public void clear() {
+        clearShips();
+        attacks.clear();
+        hits = 0;
+    }
+}
@@ -0,0 +1,172 @@
+package proj;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Console viewer for a GameServer spectator port: sends WATCH and prints the
+// match as it is played. The stream is the players' own frames, each preceded
+// by SEAT saying who sent it.
+public class SpectatorClient implements ProtocolListener {
+    private final String[] names = {"Player 1", "Player 2"};
+    private int seat = 0;
+    private boolean finished = false;
+
+    public void watch(String host, int port, String matchId) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            OutputStream out = socket.getOutputStream();
+            String watch = matchId == null ? "WATCH\n" : "WATCH:" + matchId + "\n";
+            out.write(watch.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            WireProtocol protocol = new WireProtocol();
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            int n;
+            while ((n = in.read(buffer.array(), buffer.position(), buffer.remaining())) != -1) {
+                buffer.position(buffer.position() + n);
+                buffer.flip();
+                protocol.decode(buffer, this);
+                buffer.compact();
+
+                // A single message larger than the buffer: grow and keep reading
+                if (!buffer.hasRemaining()) {
+                    ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    bigger.put(buffer);
+                    buffer = bigger;
+                }
+            }
+        }
+        if (!finished) System.out.println("Match ended");
+    }
+
+    private String player() {
+        return names[seat];
+    }
+
+    private static String position(int row, int col, int size, boolean vertical) {
+        return size + " cells from (" + row + ", " + col + ") " + (vertical ? "down" : "across");
+    }
+
+    @Override
+    public void onSeat(int seat) {
+        this.seat = seat == 1 ? 1 : 0;
+    }
+
+    @Override
+    public void onPlayerName(String name) {
+        names[seat] = name;
+    }
+
+    @Override
+    public void onVariant(String spec) {
+        System.out.println("Board " + spec);
+    }
+
+    @Override
+    public void onPing(long token) {
+        // Spectator streams carry no heartbeat
+    }
+
+    @Override
+    public void onPong(long token) {
+    }
+
+    @Override
+    public void onSession(long token) {
+        // Sessions are for players only
+    }
+
+    @Override
+    public void onResume(long token, long received) {
+    }
+
+    @Override
+    public void onResumed(long received) {
+    }
+
+    @Override
+    public void onAway() {
+    }
+
+    @Override
+    public void onSnapshot(byte[] snapshot) {
+    }
+
+    @Override
+    public void onNoSession() {
+    }
+
+    @Override
+    public void onStart(boolean starts) {
+        finished = false;
+        System.out.println("New game: " + names[0] + " vs " + names[1] + ", " + player() + " starts");
+    }
+
+    @Override
+    public void onAttack(int row, int col) {
+        if (row < 0) System.out.println(player() + " ran out of time");
+        else System.out.print(player() + " fires at (" + row + ", " + col + ")... ");
+    }
+
+    @Override
+    public void onResult(boolean isHit) {
+        System.out.println(isHit ? "hit" : "miss");
+    }
+
+    @Override
+    public void onSunk(int row, int col, int size, boolean vertical) {
+        System.out.println("  " + player() + " lost a ship: " + position(row, col, size, vertical));
+    }
+
+    @Override
+    public void onShip(int row, int col, int size, boolean vertical) {
+        System.out.println("  " + player() + " had a ship: " + position(row, col, size, vertical));
+    }
+
+    @Override
+    public void onWin() {
+        finished = true;
+        System.out.println(player() + " wins!");
+    }
+
+    @Override
+    public void onUnknown(String command) {
+        if (command.equals("NO_MATCH")) {
+            finished = true;
+            System.out.println("No such match");
+        }
+    }
+
+    @Override
+    public void onHello() {
+    }
+
+    @Override
+    public void onReady() {
+    }
+
+    @Override
+    public void onRematchRequest() {
+    }
+
+    @Override
+    public void onRematchAccept() {
+    }
+
+    @Override
+    public void onChat(String message) {
+    }
+
+    @Override
+    public void onLobby() {
+    }
+
+    @Override
+    public void onMatched() {
+    }
+}
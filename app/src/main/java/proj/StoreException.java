@@ -0,0 +1,14 @@
+package proj;
+
+// Failure reading from or writing to a GameStore, whatever the backend
+public class StoreException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public StoreException(String message) {
+        super(message);
+    }
+
+    public StoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,18 @@
+package proj;
+
+// Chooses shots for one player over one game. Cells are Board indexes
+// (row * GRID_SIZE + col). Implementations keep their own state and are used
+// by a single thread at a time.
+public interface TargetingStrategy {
+    // Forget all shots for a new game
+    void reset();
+
+    // Next cell to fire at, -1 if there is nothing left to shoot
+    int chooseShot();
+
+    void recordShot(int cell, boolean isHit);
+
+    // The last hit sank the ship on these cells (a BitBoard mask)
+    default void recordSunk(long shipCells) {
+    }
+}
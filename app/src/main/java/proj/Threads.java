@@ -0,0 +1,43 @@
+package proj;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Thread factories for connection handling. Connections spend nearly all their
+// time blocked in accept/read, so on a runtime with virtual threads (JDK 21+)
+// each one gets a virtual thread; otherwise they get named daemon threads with
+// a small stack so idle connections stay cheap.
+public final class Threads {
+    private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+    private Threads() {
+    }
+
+    public static ThreadFactory connectionThreads(String prefix) {
+        ThreadFactory virtual = virtualThreads(prefix);
+        return virtual != null ? virtual : platformThreads(prefix);
+    }
+
+    public static ThreadFactory platformThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(null, task, prefix + "-" + counter.incrementAndGet(), PLATFORM_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Thread.ofVirtual().name(prefix + "-", 1).factory(), looked up reflectively
+    // so the code still compiles and runs on JDK 17. Returns null when unavailable.
+    public static ThreadFactory virtualThreads(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = ofVirtual.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 1L);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
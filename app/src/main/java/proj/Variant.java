@@ -0,0 +1,137 @@
+package proj;
+
+import java.util.Arrays;
+
+// Board size and fleet for a match. Written as "size:ship,ship,..." on the wire
+// and in the host dialog, e.g. "8:4,3,3,2" for the standard game or "1000:5,4,3,3,2".
+// A bare size keeps the standard fleet.
+public final class Variant {
+    public static final int MAX_SIZE = 4096;
+    public static final int MAX_SHIPS = 127;
+    
+    public static final Variant STANDARD = new Variant(Model.GRID_SIZE, standardFleet());
+    
+    private final int size;
+    private final int[] fleet; // Ship sizes, largest first
+    
+    public Variant(int size, int[] fleet) {
+        if (size < 2 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between 2 and " + MAX_SIZE);
+        }
+        if (fleet.length == 0 || fleet.length > MAX_SHIPS) {
+            throw new IllegalArgumentException("Fleet must have between 1 and " + MAX_SHIPS + " ships");
+        }
+        int[] sorted = fleet.clone();
+        Arrays.sort(sorted);
+        long cells = 0;
+        for (int ship : sorted) {
+            if (ship < 2 || ship > size) {
+                throw new IllegalArgumentException("Ship size must be between 2 and the board size");
+            }
+            cells += ship;
+        }
+        if (cells > (long) size * size / 2) {
+            throw new IllegalArgumentException("Fleet covers more than half the board");
+        }
+        // Largest first
+        for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+            int t = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = t;
+        }
+        this.size = size;
+        this.fleet = sorted;
+    }
+    
+    private static int[] standardFleet() {
+        int[] fleet = new int[Model.LARGE_SHIP_COUNT + Model.MEDIUM_SHIP_COUNT + Model.SMALL_SHIP_COUNT];
+        int i = 0;
+        for (int k = 0; k < Model.LARGE_SHIP_COUNT; k++) fleet[i++] = Model.LARGE_SHIP_SIZE;
+        for (int k = 0; k < Model.MEDIUM_SHIP_COUNT; k++) fleet[i++] = Model.MEDIUM_SHIP_SIZE;
+        for (int k = 0; k < Model.SMALL_SHIP_COUNT; k++) fleet[i++] = Model.SMALL_SHIP_SIZE;
+        return fleet;
+    }
+    
+    // "N" or "N:a,b,c"; throws IllegalArgumentException with a message for the player
+    public static Variant parse(String spec) {
+        if (spec == null || spec.trim().isEmpty()) {
+            return STANDARD;
+        }
+        String[] parts = spec.trim().split(":", 2);
+        try {
+            int size = Integer.parseInt(parts[0].trim());
+            if (parts.length == 1) {
+                return new Variant(size, STANDARD.fleet);
+            }
+            String[] ships = parts[1].split(",");
+            int[] fleet = new int[ships.length];
+            for (int i = 0; i < ships.length; i++) {
+                fleet[i] = Integer.parseInt(ships[i].trim());
+            }
+            return new Variant(size, fleet);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected size:ship,ship,... but got \"" + spec + "\"");
+        }
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public int[] getFleet() {
+        return fleet.clone();
+    }
+    
+    public int getShipCount() {
+        return fleet.length;
+    }
+    
+    public int countOf(int shipSize) {
+        int count = 0;
+        for (int ship : fleet) {
+            if (ship == shipSize) count++;
+        }
+        return count;
+    }
+    
+    public int getTotalShipCells() {
+        int cells = 0;
+        for (int ship : fleet) cells += ship;
+        return cells;
+    }
+    
+    public int getMaxShipSize() {
+        return fleet[0];
+    }
+    
+    // Distinct ship sizes, largest first
+    public int[] getShipSizes() {
+        return Arrays.stream(fleet).distinct().toArray();
+    }
+    
+    public boolean isStandard() {
+        return equals(STANDARD);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Variant)) return false;
+        Variant other = (Variant) o;
+        return size == other.size && Arrays.equals(fleet, other.fleet);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * size + Arrays.hashCode(fleet);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(size).append(':');
+        for (int i = 0; i < fleet.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(fleet[i]);
+        }
+        return sb.toString();
+    }
+}
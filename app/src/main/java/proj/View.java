@@ -8,9 +8,9 @@ import javax.swing.Timer;
 public class View {
     private Controller cont;
     
-    // Grids
-    public JButton[][] myGrid = new JButton[8][8];
-    public JButton[][] opponentGrid = new JButton[8][8];
+    // Boards, painted from the model's boards
+    private BoardPanel myBoardPanel;
+    private BoardPanel opponentBoardPanel;
     
     // Main frame and panels
     private JFrame f = new JFrame("BATTLESHIP MULTIPLAYER");
@@ -32,12 +32,15 @@ public class View {
     private JButton readyButton = new JButton("Not Ready");
     private JButton leaderboardButton = new JButton("Leaderboard");
     
-    // Ship selector panel
+    // Ship selector panel, one button per ship size of the variant
+    private static final Color[] SHIP_COLORS = {
+        new Color(46, 204, 113), new Color(52, 152, 219), new Color(155, 89, 182),
+        new Color(26, 188, 156), new Color(241, 196, 15), new Color(230, 126, 34)
+    };
+    private Variant variant = Variant.STANDARD;
     private JPanel shipSelectorPanel = new JPanel();
-    private JButton smallShipBtn = new JButton("Small (2)");
-    private JButton mediumShipBtn = new JButton("Medium (3)");
-    private JButton largeShipBtn = new JButton("Large (4)");
     private JLabel shipCountLabel = new JLabel("Ships: S:1 M:2 L:1");
+    private JLabel enemyFleetLabel = new JLabel("Enemy: S:1 M:2 L:1");
     
     // Timer
     private Timer turnTimer;
@@ -110,46 +113,83 @@ public class View {
         centerPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         centerPanel.setBackground(new Color(44, 62, 80));
         
+        fillCenterPanel();
+    }
+    
+    private void fillCenterPanel() {
+        centerPanel.removeAll();
+        shipSelectorPanel.removeAll();
+        
         // Ship selector panel (left)
         setupShipSelector();
         
         // Player's grid (center)
-        JPanel myGridPanel = createGridPanel("YOUR SHIPS", myGrid, true);
+        myBoardPanel = new BoardPanel(variant.getSize(), true, cont::handleMyGridClick);
+        JPanel myGridPanel = createGridPanel("YOUR SHIPS", myBoardPanel);
         
         // Opponent's grid (right)
-        JPanel opponentGridPanel = createGridPanel("OPPONENT'S GRID", opponentGrid, false);
+        opponentBoardPanel = new BoardPanel(variant.getSize(), false, cont::handleOpponentGridClick);
+        JPanel opponentGridPanel = createGridPanel("OPPONENT'S GRID", opponentBoardPanel);
         
         centerPanel.add(shipSelectorPanel);
         centerPanel.add(myGridPanel);
         centerPanel.add(opponentGridPanel);
     }
     
+    // New board size or fleet: rebuild the selector and both (empty) boards
+    public void setVariant(Variant variant) {
+        this.variant = variant;
+        fillCenterPanel();
+        centerPanel.revalidate();
+        centerPanel.repaint();
+    }
+    
     private void setupShipSelector() {
-        shipSelectorPanel.setLayout(new GridLayout(5, 1, 5, 10));
+        int[] sizes = variant.getShipSizes();
+        shipSelectorPanel.setLayout(new GridLayout(sizes.length + 3, 1, 5, 10));
         shipSelectorPanel.setBackground(new Color(52, 73, 94));
         shipSelectorPanel.setBorder(BorderFactory.createTitledBorder(
             BorderFactory.createLineBorder(Color.WHITE, 2), 
             "Ship Selector",
             0, 0, new Font("Arial", Font.BOLD, 14), Color.WHITE));
         
-        // Style ship buttons
-        styleShipButton(smallShipBtn, new Color(46, 204, 113));
-        styleShipButton(mediumShipBtn, new Color(52, 152, 219));
-        styleShipButton(largeShipBtn, new Color(155, 89, 182));
-        
-        smallShipBtn.addActionListener(e -> cont.selectShipType(Model.SMALL_SHIP_SIZE));
-        mediumShipBtn.addActionListener(e -> cont.selectShipType(Model.MEDIUM_SHIP_SIZE));
-        largeShipBtn.addActionListener(e -> cont.selectShipType(Model.LARGE_SHIP_SIZE));
-        
         shipCountLabel.setForeground(Color.WHITE);
         shipCountLabel.setFont(new Font("Arial", Font.PLAIN, 12));
         shipCountLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        enemyFleetLabel.setForeground(Color.ORANGE);
+        enemyFleetLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        enemyFleetLabel.setHorizontalAlignment(SwingConstants.CENTER);
         
         shipSelectorPanel.add(new JLabel()); // Spacer
-        shipSelectorPanel.add(smallShipBtn);
-        shipSelectorPanel.add(mediumShipBtn);
-        shipSelectorPanel.add(largeShipBtn);
+        
+        // Smallest first, like the standard Small / Medium / Large
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            int size = sizes[i];
+            JButton button = new JButton(GameEngine.getShipName(size) + " (" + size + ")");
+            styleShipButton(button, SHIP_COLORS[(sizes.length - 1 - i) % SHIP_COLORS.length]);
+            button.addActionListener(e -> cont.selectShipType(size));
+            shipSelectorPanel.add(button);
+        }
         shipSelectorPanel.add(shipCountLabel);
+        shipSelectorPanel.add(enemyFleetLabel);
+        updateShipCount(countsFor(variant));
+        updateEnemyFleet(countsFor(variant));
+    }
+    
+    private static int[] countsFor(Variant variant) {
+        int[] counts = new int[variant.getMaxShipSize() + 1];
+        for (int size : variant.getShipSizes()) {
+            counts[size] = variant.countOf(size);
+        }
+        return counts;
+    }
+    
+    // S, M and L for the standard sizes, the cell count otherwise
+    private static String shipLabel(int size) {
+        if (size == Model.SMALL_SHIP_SIZE) return "S";
+        if (size == Model.MEDIUM_SHIP_SIZE) return "M";
+        if (size == Model.LARGE_SHIP_SIZE) return "L";
+        return String.valueOf(size);
     }
     
     private void styleShipButton(JButton btn, Color color) {
@@ -160,7 +200,7 @@ public class View {
         btn.setBorder(BorderFactory.createLineBorder(Color.WHITE, 2));
     }
     
-    private JPanel createGridPanel(String title, JButton[][] grid, boolean isPlayerGrid) {
+    private JPanel createGridPanel(String title, BoardPanel board) {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(new Color(52, 73, 94));
         
@@ -169,31 +209,8 @@ public class View {
         titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
         titleLabel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
         
-        JPanel gridPanel = new JPanel(new GridLayout(8, 8, 2, 2));
-        gridPanel.setBackground(Color.BLACK);
-        gridPanel.setBorder(BorderFactory.createLineBorder(Color.WHITE, 3));
-        
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                JButton btn = new JButton();
-                btn.setBackground(new Color(41, 128, 185)); // Ocean blue
-                btn.setPreferredSize(new Dimension(50, 50));
-                btn.setFocusPainted(false);
-                grid[r][c] = btn;
-                
-                int row = r, col = c;
-                if (isPlayerGrid) {
-                    btn.addActionListener(e -> cont.handleMyGridClick(row, col));
-                } else {
-                    btn.addActionListener(e -> cont.handleOpponentGridClick(row, col));
-                }
-                
-                gridPanel.add(btn);
-            }
-        }
-        
         panel.add(titleLabel, BorderLayout.NORTH);
-        panel.add(gridPanel, BorderLayout.CENTER);
+        panel.add(board, BorderLayout.CENTER);
         
         return panel;
     }
@@ -249,15 +266,16 @@ public class View {
         opponentNameLabel.setText("OPPONENT: " + name);
     }
     
+    // Repaint one cell from the board state: red hit, yellow miss, blue ship
+    public void setCell(boolean ownBoard, int r, int c, byte state) {
+        BoardPanel board = ownBoard ? myBoardPanel : opponentBoardPanel;
+        if (board != null) board.setCell(r, c, state);
+    }
+    
     public void resetForRematch() {
-        // Reset grids
-        Color oceanBlue = new Color(41, 128, 185);
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                myGrid[r][c].setBackground(oceanBlue);
-                opponentGrid[r][c].setBackground(oceanBlue);
-            }
-        }
+        // Boards are already cleared in the model, clear what is shown
+        myBoardPanel.clearCells();
+        opponentBoardPanel.clearCells();
         
         // Reset UI
         setReadyButton(false);
@@ -265,6 +283,7 @@ public class View {
         turnLabel.setForeground(Color.RED);
         timerLabel.setText("TIME: 30s");
         timerLabel.setForeground(Color.YELLOW);
+        updateEnemyFleet(countsFor(variant));
         stopTimer();
     }
     
@@ -277,8 +296,24 @@ public class View {
         }
     }
     
-    public void updateShipCount(int small, int medium, int large) {
-        shipCountLabel.setText("Ships: S:" + small + " M:" + medium + " L:" + large);
+    // Ships still to place, indexed by ship size
+    public void updateShipCount(int[] leftBySize) {
+        shipCountLabel.setText(fleetText("Ships:", leftBySize));
+    }
+    
+    // Opponent ships not yet sunk, indexed by ship size
+    public void updateEnemyFleet(int[] afloatBySize) {
+        enemyFleetLabel.setText(fleetText("Enemy:", afloatBySize));
+    }
+    
+    private String fleetText(String title, int[] countBySize) {
+        StringBuilder text = new StringBuilder(title);
+        int[] sizes = variant.getShipSizes();
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            int count = sizes[i] < countBySize.length ? countBySize[sizes[i]] : 0;
+            text.append(' ').append(shipLabel(sizes[i])).append(':').append(count);
+        }
+        return text.toString();
     }
     
     public void setReadyButton(boolean ready) {
@@ -310,11 +345,16 @@ public class View {
     }
     
     private void showRules() {
+        StringBuilder ships = new StringBuilder();
+        int[] sizes = variant.getShipSizes();
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            ships.append("  - ").append(variant.countOf(sizes[i])).append(' ')
+                 .append(GameEngine.getShipName(sizes[i])).append(" (").append(sizes[i]).append(" cells)\n");
+        }
         String rules = "BATTLESHIP GAME RULES\n\n" +
+                      "Board: " + variant.getSize() + "x" + variant.getSize() + "\n\n" +
                       "Ships:\n" +
-                      "  - 1 Small (2 cells)\n" +
-                      "  - 2 Medium (3 cells)\n" +
-                      "  - 1 Large (4 cells)\n\n" +
+                      ships + "\n" +
                       "Placement:\n" +
                       "  - Select ship type\n" +
                       "  - Click grid cells to place\n" +
@@ -0,0 +1,664 @@
+package proj;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Per-connection encoder/decoder for the game protocol.
+//
+// Every connection starts on the newline-delimited text commands. Both sides
+// send HELLO:BIN1 on connect; a side that receives it answers with a BINARY
+// line and writes binary frames from then on. Reading a BINARY line switches
+// the inbound side. Older clients ignore HELLO and never send it, so the
+// connection simply stays on text.
+//
+// Binary frames are [u16 length][u8 opcode][payload], where length covers
+// opcode and payload. ATTACK packs row and column into one byte (0xFF is the
+// timeout pass), or into two u16s when either is past 14 on a larger board.
+// RESULT and START are a single flag byte. VARIANT carries the host's
+// board size and fleet as text, e.g. "1000:5,4,3,3,2". SUNK follows a hit
+// RESULT that sank a ship: u16 row and column of its top-left cell, u16 size
+// and a vertical flag byte. SHIP has the same payload and reveals one ship of
+// the sender's fleet once the game is over.
+//
+// Spectators read the same frames. Each event they see is preceded by SEAT,
+// one byte saying which player (0 or 1) sent it.
+//
+// PING carries an 8-byte token that the receiver echoes straight back in
+// PONG; the sender uses its own clock as the token, so the echo gives the
+// round trip time without either side keeping per-ping state (see Heartbeat).
+//
+// Session resume: the accepting side (the host, or GameServer) gives the
+// other a token in SESSION. After a dropped connection the client reconnects
+// and sends RESUME with the token and how many messages it had received on
+// the old connection; the acceptor answers RESUMED with its own count, or
+// NO_SESSION. Both players then send SNAPSHOT, what they know for certain
+// about their own board (see Snapshot), and carry on. GameServer sends AWAY
+// to the player whose opponent dropped, and RESUMED when they are back.
+public class WireProtocol {
+    public static final String HELLO = "HELLO:BIN1";
+    public static final String SWITCH_TO_BINARY = "BINARY";
+
+    // Opcodes
+    static final byte OP_PLAYER_NAME = 1;
+    static final byte OP_READY = 2;
+    static final byte OP_START = 3;
+    static final byte OP_ATTACK = 4;
+    static final byte OP_RESULT = 5;
+    static final byte OP_WIN = 6;
+    static final byte OP_REMATCH_REQUEST = 7;
+    static final byte OP_REMATCH_ACCEPT = 8;
+    static final byte OP_CHAT = 9;
+    static final byte OP_LOBBY = 10;
+    static final byte OP_MATCHED = 11;
+    static final byte OP_VARIANT = 12;
+    static final byte OP_SUNK = 13;
+    static final byte OP_SHIP = 14;
+    static final byte OP_SEAT = 15;
+    static final byte OP_PING = 16;
+    static final byte OP_PONG = 17;
+    static final byte OP_SESSION = 18;
+    static final byte OP_RESUME = 19;
+    static final byte OP_RESUMED = 20;
+    static final byte OP_AWAY = 21;
+    static final byte OP_SNAPSHOT = 22;
+    static final byte OP_NO_SESSION = 23;
+
+    private static final int HEADER_SIZE = 2;
+    private static final int MAX_FRAME_LENGTH = 0xFFFF;
+    private static final byte TIMEOUT_CELL = (byte) 0xFF;
+    private static final int COMPACT_LIMIT = 15; // Rows and columns below this fit in a nibble
+    private static final int WIDE_TIMEOUT = 0xFFFF;
+    private static final int SUNK_PAYLOAD = 7;
+    private static final int PING_PAYLOAD = 8;
+    private static final int RESUME_PAYLOAD = 16;
+    public static final int MAX_PAYLOAD = MAX_FRAME_LENGTH - 1;
+
+    private boolean binaryIn = false;
+    private boolean binaryOut = false;
+    private boolean helloSent = false;
+
+    // Encoded bytes waiting to be written, kept in write mode
+    private ByteBuffer out = ByteBuffer.allocate(256);
+    private int queuedMessages = 0;
+
+    // Messages encoded and decoded over the protocol's life, for session resume
+    private long messagesOut = 0;
+    private long messagesIn = 0;
+
+    // Per-message counts and handling time, when set
+    private Metrics metrics;
+    private int lastOpcode;
+
+    public boolean isBinaryIn() {
+        return binaryIn;
+    }
+
+    public boolean isBinaryOut() {
+        return binaryOut;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Decoding
+
+    // Decode every complete message in buf (read mode) and leave any partial
+    // message at buf's position. Returns the number of messages dispatched.
+    public int decode(ByteBuffer buf, ProtocolListener listener) {
+        int count = 0;
+        while (buf.hasRemaining()) {
+            long start = metrics != null ? System.nanoTime() : 0;
+            boolean decoded = binaryIn ? decodeFrame(buf, listener) : decodeLine(buf, listener);
+            if (!decoded) break;
+            if (metrics != null) metrics.recordMessage(lastOpcode, System.nanoTime() - start);
+            count++;
+        }
+        messagesIn += count;
+        return count;
+    }
+
+    private boolean decodeFrame(ByteBuffer buf, ProtocolListener listener) {
+        if (buf.remaining() < HEADER_SIZE) return false;
+        int start = buf.position();
+        int length = buf.getShort(start) & 0xFFFF;
+        if (buf.remaining() < HEADER_SIZE + length) return false;
+
+        int payload = start + HEADER_SIZE + 1;
+        int payloadLength = length - 1;
+        byte opcode = length > 0 ? buf.get(start + HEADER_SIZE) : 0;
+        buf.position(start + HEADER_SIZE + length);
+        lastOpcode = opcode;
+
+        // Flag and coordinate messages carry exactly one payload byte
+        if ((opcode == OP_START || opcode == OP_ATTACK || opcode == OP_RESULT || opcode == OP_SEAT) && payloadLength < 1
+                || (opcode == OP_SUNK || opcode == OP_SHIP) && payloadLength < SUNK_PAYLOAD
+                || (opcode == OP_PING || opcode == OP_PONG || opcode == OP_SESSION || opcode == OP_RESUMED)
+                        && payloadLength < PING_PAYLOAD
+                || opcode == OP_RESUME && payloadLength < RESUME_PAYLOAD) {
+            listener.onUnknown("truncated opcode " + opcode);
+            return true;
+        }
+
+        switch (opcode) {
+            case OP_PLAYER_NAME:
+                listener.onPlayerName(readString(buf, payload, payloadLength));
+                break;
+            case OP_READY:
+                listener.onReady();
+                break;
+            case OP_START:
+                listener.onStart(buf.get(payload) != 0);
+                break;
+            case OP_ATTACK: {
+                if (payloadLength >= 4) {
+                    int row = buf.getShort(payload) & 0xFFFF;
+                    int col = buf.getShort(payload + 2) & 0xFFFF;
+                    if (row == WIDE_TIMEOUT) {
+                        listener.onAttack(-1, -1);
+                    } else {
+                        listener.onAttack(row, col);
+                    }
+                    break;
+                }
+                byte cell = buf.get(payload);
+                if (cell == TIMEOUT_CELL) {
+                    listener.onAttack(-1, -1);
+                } else {
+                    listener.onAttack((cell >> 4) & 0x0F, cell & 0x0F);
+                }
+                break;
+            }
+            case OP_RESULT:
+                listener.onResult(buf.get(payload) != 0);
+                break;
+            case OP_WIN:
+                listener.onWin();
+                break;
+            case OP_REMATCH_REQUEST:
+                listener.onRematchRequest();
+                break;
+            case OP_REMATCH_ACCEPT:
+                listener.onRematchAccept();
+                break;
+            case OP_CHAT:
+                listener.onChat(readString(buf, payload, payloadLength));
+                break;
+            case OP_LOBBY:
+                listener.onLobby();
+                break;
+            case OP_MATCHED:
+                listener.onMatched();
+                break;
+            case OP_VARIANT:
+                listener.onVariant(readString(buf, payload, payloadLength));
+                break;
+            case OP_SUNK:
+                listener.onSunk(buf.getShort(payload) & 0xFFFF, buf.getShort(payload + 2) & 0xFFFF,
+                                buf.getShort(payload + 4) & 0xFFFF, buf.get(payload + 6) != 0);
+                break;
+            case OP_SHIP:
+                listener.onShip(buf.getShort(payload) & 0xFFFF, buf.getShort(payload + 2) & 0xFFFF,
+                                buf.getShort(payload + 4) & 0xFFFF, buf.get(payload + 6) != 0);
+                break;
+            case OP_SEAT:
+                listener.onSeat(buf.get(payload));
+                break;
+            case OP_PING:
+                listener.onPing(buf.getLong(payload));
+                break;
+            case OP_PONG:
+                listener.onPong(buf.getLong(payload));
+                break;
+            case OP_SESSION:
+                listener.onSession(buf.getLong(payload));
+                break;
+            case OP_RESUME:
+                listener.onResume(buf.getLong(payload), buf.getLong(payload + 8));
+                break;
+            case OP_RESUMED:
+                listener.onResumed(buf.getLong(payload));
+                break;
+            case OP_AWAY:
+                listener.onAway();
+                break;
+            case OP_SNAPSHOT: {
+                byte[] snapshot = new byte[payloadLength];
+                buf.get(payload, snapshot);
+                listener.onSnapshot(snapshot);
+                break;
+            }
+            case OP_NO_SESSION:
+                listener.onNoSession();
+                break;
+            default:
+                listener.onUnknown("opcode " + opcode);
+        }
+        return true;
+    }
+
+    private static String readString(ByteBuffer buf, int offset, int length) {
+        return new String(buf.array(), buf.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+    }
+
+    private boolean decodeLine(ByteBuffer buf, ProtocolListener listener) {
+        int start = buf.position();
+        int newline = -1;
+        for (int i = start; i < buf.limit(); i++) {
+            if (buf.get(i) == '\n') {
+                newline = i;
+                break;
+            }
+        }
+        if (newline < 0) return false;
+
+        int end = newline > start && buf.get(newline - 1) == '\r' ? newline - 1 : newline;
+        String line = readString(buf, start, end - start);
+        buf.position(newline + 1);
+        handleLine(line, listener);
+        return true;
+    }
+
+    // Binary opcode of a text command, 0 for HELLO, BINARY and unknown ones
+    private static int opcodeOf(String command) {
+        switch (command) {
+            case "PLAYER_NAME": return OP_PLAYER_NAME;
+            case "READY": return OP_READY;
+            case "START": return OP_START;
+            case "ATTACK": return OP_ATTACK;
+            case "RESULT": return OP_RESULT;
+            case "WIN": return OP_WIN;
+            case "REMATCH_REQUEST": return OP_REMATCH_REQUEST;
+            case "REMATCH_ACCEPT": return OP_REMATCH_ACCEPT;
+            case "CHAT": return OP_CHAT;
+            case "LOBBY": return OP_LOBBY;
+            case "MATCHED": return OP_MATCHED;
+            case "VARIANT": return OP_VARIANT;
+            case "SUNK": return OP_SUNK;
+            case "SHIP": return OP_SHIP;
+            case "SEAT": return OP_SEAT;
+            case "PING": return OP_PING;
+            case "PONG": return OP_PONG;
+            case "SESSION": return OP_SESSION;
+            case "RESUME": return OP_RESUME;
+            case "RESUMED": return OP_RESUMED;
+            case "AWAY": return OP_AWAY;
+            case "SNAPSHOT": return OP_SNAPSHOT;
+            case "NO_SESSION": return OP_NO_SESSION;
+            default: return 0;
+        }
+    }
+
+    private void handleLine(String line, ProtocolListener listener) {
+        // Only the first colon separates the command, so names and chat may contain colons
+        int colon = line.indexOf(':');
+        String command = colon < 0 ? line : line.substring(0, colon);
+        String argument = colon < 0 ? "" : line.substring(colon + 1);
+        if (metrics != null) lastOpcode = opcodeOf(command);
+
+        switch (command) {
+            case "HELLO":
+                listener.onHello();
+                break;
+            case SWITCH_TO_BINARY:
+                binaryIn = true;
+                break;
+            case "PLAYER_NAME":
+                listener.onPlayerName(argument.isEmpty() ? "Opponent" : argument);
+                break;
+            case "READY":
+                listener.onReady();
+                break;
+            case "START":
+                listener.onStart(Boolean.parseBoolean(argument));
+                break;
+            case "ATTACK": {
+                int split = argument.indexOf(':');
+                listener.onAttack(Integer.parseInt(argument.substring(0, split)),
+                                  Integer.parseInt(argument.substring(split + 1)));
+                break;
+            }
+            case "RESULT":
+                listener.onResult(Boolean.parseBoolean(argument));
+                break;
+            case "WIN":
+                listener.onWin();
+                break;
+            case "REMATCH_REQUEST":
+                listener.onRematchRequest();
+                break;
+            case "REMATCH_ACCEPT":
+                listener.onRematchAccept();
+                break;
+            case "CHAT":
+                listener.onChat(argument);
+                break;
+            case "LOBBY":
+                listener.onLobby();
+                break;
+            case "MATCHED":
+                listener.onMatched();
+                break;
+            case "VARIANT":
+                listener.onVariant(argument);
+                break;
+            case "SUNK":
+            case "SHIP": {
+                // SUNK:row:col:size:H or V, SHIP the same
+                String[] parts = argument.split(":");
+                int row = Integer.parseInt(parts[0]);
+                int col = Integer.parseInt(parts[1]);
+                int size = Integer.parseInt(parts[2]);
+                boolean vertical = parts[3].equals("V");
+                if (command.equals("SUNK")) listener.onSunk(row, col, size, vertical);
+                else listener.onShip(row, col, size, vertical);
+                break;
+            }
+            case "SEAT":
+                listener.onSeat(Integer.parseInt(argument));
+                break;
+            case "PING":
+                listener.onPing(Long.parseLong(argument));
+                break;
+            case "PONG":
+                listener.onPong(Long.parseLong(argument));
+                break;
+            case "SESSION":
+                listener.onSession(Long.parseLong(argument));
+                break;
+            case "RESUME": {
+                int split = argument.indexOf(':');
+                listener.onResume(Long.parseLong(argument.substring(0, split)),
+                                  Long.parseLong(argument.substring(split + 1)));
+                break;
+            }
+            case "RESUMED":
+                listener.onResumed(Long.parseLong(argument));
+                break;
+            case "AWAY":
+                listener.onAway();
+                break;
+            case "SNAPSHOT":
+                listener.onSnapshot(Base64.getDecoder().decode(argument));
+                break;
+            case "NO_SESSION":
+                listener.onNoSession();
+                break;
+            default:
+                listener.onUnknown(command);
+        }
+    }
+
+    // Encoding
+
+    // Advertise binary support, always sent as text so older peers can read it
+    public void writeHello() {
+        if (helloSent) return;
+        helloSent = true;
+        writeLine(HELLO);
+    }
+
+    // The peer said HELLO: tell it the rest of our stream is binary
+    public void switchToBinary() {
+        if (binaryOut) return;
+        writeLine(SWITCH_TO_BINARY);
+        binaryOut = true;
+    }
+
+    public void writePlayerName(String name) {
+        if (binaryOut) writeFrame(OP_PLAYER_NAME, name);
+        else writeLine("PLAYER_NAME:" + truncate(name));
+    }
+
+    public void writeReady() {
+        if (binaryOut) writeFrame(OP_READY);
+        else writeLine("READY");
+    }
+
+    public void writeStart(boolean serverStarts) {
+        if (binaryOut) writeFrame(OP_START, (byte) (serverStarts ? 1 : 0));
+        else writeLine("START:" + serverStarts);
+    }
+
+    public void writeAttack(int row, int col) {
+        if (binaryOut) {
+            if (row < 0 || col < 0) {
+                writeFrame(OP_ATTACK, TIMEOUT_CELL);
+            } else if (row < COMPACT_LIMIT && col < COMPACT_LIMIT) {
+                writeFrame(OP_ATTACK, (byte) ((row << 4) | col));
+            } else {
+                writeFrame(OP_ATTACK, (short) row, (short) col);
+            }
+        } else {
+            writeLine("ATTACK:" + row + ":" + col);
+        }
+    }
+
+    public void writeResult(boolean isHit) {
+        if (binaryOut) writeFrame(OP_RESULT, (byte) (isHit ? 1 : 0));
+        else writeLine("RESULT:" + isHit);
+    }
+
+    public void writeSunk(int row, int col, int size, boolean vertical) {
+        writeShipPosition(OP_SUNK, "SUNK:", row, col, size, vertical);
+    }
+
+    public void writeShip(int row, int col, int size, boolean vertical) {
+        writeShipPosition(OP_SHIP, "SHIP:", row, col, size, vertical);
+    }
+
+    private void writeShipPosition(byte opcode, String command, int row, int col, int size, boolean vertical) {
+        if (binaryOut) {
+            ensureCapacity(HEADER_SIZE + 1 + SUNK_PAYLOAD);
+            out.putShort((short) (1 + SUNK_PAYLOAD)).put(opcode)
+               .putShort((short) row).putShort((short) col).putShort((short) size)
+               .put((byte) (vertical ? 1 : 0));
+            queued();
+        } else {
+            writeLine(command + row + ":" + col + ":" + size + ":" + (vertical ? "V" : "H"));
+        }
+    }
+
+    public void writeSeat(int seat) {
+        if (binaryOut) writeFrame(OP_SEAT, (byte) seat);
+        else writeLine("SEAT:" + seat);
+    }
+
+    public void writeWin() {
+        if (binaryOut) writeFrame(OP_WIN);
+        else writeLine("WIN");
+    }
+
+    public void writeRematchRequest() {
+        if (binaryOut) writeFrame(OP_REMATCH_REQUEST);
+        else writeLine("REMATCH_REQUEST");
+    }
+
+    public void writeRematchAccept() {
+        if (binaryOut) writeFrame(OP_REMATCH_ACCEPT);
+        else writeLine("REMATCH_ACCEPT");
+    }
+
+    public void writeChat(String message) {
+        if (binaryOut) writeFrame(OP_CHAT, message);
+        else writeLine("CHAT:" + truncate(message));
+    }
+
+    public void writeLobby() {
+        if (binaryOut) writeFrame(OP_LOBBY);
+        else writeLine("LOBBY");
+    }
+
+    public void writeMatched() {
+        if (binaryOut) writeFrame(OP_MATCHED);
+        else writeLine("MATCHED");
+    }
+
+    public void writeVariant(String spec) {
+        if (binaryOut) writeFrame(OP_VARIANT, spec);
+        else writeLine("VARIANT:" + truncate(spec));
+    }
+
+    public void writePing(long token) {
+        writeToken(OP_PING, "PING:", token);
+    }
+
+    public void writePong(long token) {
+        writeToken(OP_PONG, "PONG:", token);
+    }
+
+    public void writeSession(long token) {
+        writeToken(OP_SESSION, "SESSION:", token);
+    }
+
+    public void writeResume(long token, long received) {
+        if (binaryOut) {
+            ensureCapacity(HEADER_SIZE + 1 + RESUME_PAYLOAD);
+            out.putShort((short) (1 + RESUME_PAYLOAD)).put(OP_RESUME).putLong(token).putLong(received);
+            queued();
+        } else {
+            writeLine("RESUME:" + token + ":" + received);
+        }
+    }
+
+    public void writeResumed(long received) {
+        writeToken(OP_RESUMED, "RESUMED:", received);
+    }
+
+    public void writeAway() {
+        if (binaryOut) writeFrame(OP_AWAY);
+        else writeLine("AWAY");
+    }
+
+    public void writeNoSession() {
+        if (binaryOut) writeFrame(OP_NO_SESSION);
+        else writeLine("NO_SESSION");
+    }
+
+    // Throws IllegalArgumentException past MAX_PAYLOAD bytes
+    public void writeSnapshot(byte[] snapshot) {
+        if (snapshot.length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Snapshot of " + snapshot.length + " bytes does not fit in a frame");
+        }
+        if (binaryOut) {
+            ensureCapacity(HEADER_SIZE + 1 + snapshot.length);
+            out.putShort((short) (1 + snapshot.length)).put(OP_SNAPSHOT).put(snapshot);
+            queued();
+        } else {
+            writeLine("SNAPSHOT:" + Base64.getEncoder().encodeToString(snapshot));
+        }
+    }
+
+    private void writeToken(byte opcode, String command, long token) {
+        if (binaryOut) {
+            ensureCapacity(HEADER_SIZE + 1 + PING_PAYLOAD);
+            out.putShort((short) (1 + PING_PAYLOAD)).put(opcode).putLong(token);
+            queued();
+        } else {
+            writeLine(command + token);
+        }
+    }
+
+    private void writeLine(String line) {
+        // A newline inside a value would split the message in two
+        byte[] bytes = line.replace('\n', ' ').getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(bytes.length + 1);
+        out.put(bytes).put((byte) '\n');
+        queued();
+    }
+
+    private void writeFrame(byte opcode) {
+        ensureCapacity(HEADER_SIZE + 1);
+        out.putShort((short) 1).put(opcode);
+        queued();
+    }
+
+    private void writeFrame(byte opcode, byte value) {
+        ensureCapacity(HEADER_SIZE + 2);
+        out.putShort((short) 2).put(opcode).put(value);
+        queued();
+    }
+
+    private void writeFrame(byte opcode, short first, short second) {
+        ensureCapacity(HEADER_SIZE + 5);
+        out.putShort((short) 5).put(opcode).putShort(first).putShort(second);
+        queued();
+    }
+
+    private void writeFrame(byte opcode, String value) {
+        byte[] bytes = truncate(value).getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(HEADER_SIZE + 1 + bytes.length);
+        out.putShort((short) (bytes.length + 1)).put(opcode).put(bytes);
+        queued();
+    }
+
+    // Names, chat and variants are cut to what fits in one frame, in both framings
+    // so text and binary peers see the same value. The cut is made between
+    // characters: one split inside a UTF-8 sequence would decode as U+FFFD.
+    static String truncate(String value) {
+        if (value.length() * 3 <= MAX_PAYLOAD) return value; // Fits whatever the characters
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_PAYLOAD) return value;
+        int end = MAX_PAYLOAD;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) end--; // Back to the start of the split character
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private void queued() {
+        queuedMessages++;
+        messagesOut++;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (out.remaining() >= needed) return;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + needed));
+        out.flip();
+        bigger.put(out);
+        out = bigger;
+    }
+
+    // Encoded output
+
+    public long getMessagesOut() {
+        return messagesOut;
+    }
+
+    public long getMessagesIn() {
+        return messagesIn;
+    }
+
+    public boolean hasPending() {
+        return out.position() > 0;
+    }
+
+    // Messages encoded since the last call, used for flush statistics
+    public int takeQueuedMessages() {
+        int count = queuedMessages;
+        queuedMessages = 0;
+        return count;
+    }
+
+    // Flip the pending bytes for writing. Call finishWrite() once the caller
+    // has written what it can.
+    public ByteBuffer beginWrite() {
+        out.flip();
+        return out;
+    }
+
+    public void finishWrite() {
+        out.compact();
+    }
+
+    // Everything encoded so far as one read-only buffer, and the encoder
+    // emptied. Used to send the same bytes to many connections: each takes a
+    // duplicate() with its own position and nothing is copied per connection.
+    public ByteBuffer takeEncoded() {
+        out.flip();
+        byte[] bytes = new byte[out.remaining()];
+        out.get(bytes);
+        out.clear();
+        queuedMessages = 0;
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+}
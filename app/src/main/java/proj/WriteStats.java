@@ -0,0 +1,55 @@
+package proj;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters for the outbound path: how many messages each flush carried and
+// how many bytes each write syscall moved.
+public class WriteStats {
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    // One flush of queued messages, possibly taking several write calls
+    public void recordFlush(int messageCount) {
+        messages.add(messageCount);
+        flushes.increment();
+    }
+
+    public void recordWrite(int byteCount) {
+        writes.increment();
+        bytes.add(byteCount);
+    }
+
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public double getMessagesPerFlush() {
+        long f = flushes.sum();
+        return f == 0 ? 0 : (double) messages.sum() / f;
+    }
+
+    public double getBytesPerWrite() {
+        long w = writes.sum();
+        return w == 0 ? 0 : (double) bytes.sum() / w;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d messages in %d flushes (%.2f/flush), %d bytes in %d writes (%.1f/write)",
+                getMessages(), getFlushes(), getMessagesPerFlush(), getBytes(), getWrites(), getBytesPerWrite());
+    }
+}
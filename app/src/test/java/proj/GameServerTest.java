@@ -0,0 +1,213 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class GameServerTest {
+    private GameServer server;
+    private Thread serverThread;
+    private int port;
+    private final List<Peer> peers = new ArrayList<>();
+
+    private void startServer(long botAfterMs) throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        server = new GameServer(port, botAfterMs);
+        serverThread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "game-server");
+        serverThread.start();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        for (Peer peer : peers) peer.socket.close();
+        server.stop();
+        serverThread.join(5000);
+    }
+
+    // The server binds on its own thread, retry until it listens
+    private Socket connect() throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (true) {
+            Socket socket = new Socket(); // A failed connect closes the socket
+            try {
+                socket.connect(new InetSocketAddress("localhost", port), 1000);
+                return socket;
+            } catch (ConnectException e) {
+                if (System.currentTimeMillis() > deadline) throw e;
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    // A player's connection. Everything the server sends is recorded as the
+    // listener method's name, plus ":" and the first argument if there is one.
+    private class Peer {
+        final Socket socket;
+        final WireProtocol protocol = new WireProtocol();
+        final ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        final List<String> events = new ArrayList<>();
+        final boolean answerPings;
+        int seen;
+
+        Peer(boolean answerPings) throws Exception {
+            this.answerPings = answerPings;
+            socket = connect();
+            socket.setSoTimeout(20);
+            peers.add(this);
+        }
+
+        Peer() throws Exception {
+            this(true);
+        }
+
+        void send(Consumer<WireProtocol> messages) throws IOException {
+            messages.accept(protocol);
+            ByteBuffer out = protocol.beginWrite();
+            byte[] bytes = new byte[out.remaining()];
+            out.get(bytes);
+            protocol.finishWrite();
+            socket.getOutputStream().write(bytes);
+        }
+
+        private void read() throws IOException {
+            byte[] chunk = new byte[4096];
+            int n;
+            try {
+                n = socket.getInputStream().read(chunk);
+            } catch (SocketTimeoutException e) {
+                return;
+            }
+            if (n < 0) {
+                events.add("closed");
+                return;
+            }
+            in.put(chunk, 0, n).flip();
+            protocol.decode(in, (ProtocolListener) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ProtocolListener.class}, (proxy, method, args) -> {
+                        events.add(method.getName() + (args == null ? "" : ":" + args[0]));
+                        if (answerPings && method.getName().equals("onPing")) protocol.writePong((Long) args[0]);
+                        return null;
+                    }));
+            in.compact();
+            if (protocol.hasPending()) send(p -> { });
+        }
+
+        // The next recorded event starting with prefix, failing after timeoutMs
+        String await(String prefix, long timeoutMs) throws IOException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (true) {
+                while (seen < events.size()) {
+                    String event = events.get(seen++);
+                    if (event.startsWith(prefix)) return event;
+                }
+                if (System.currentTimeMillis() > deadline) fail("No " + prefix + " within " + timeoutMs + " ms: " + events);
+                read();
+            }
+        }
+
+        // Everything received within the next ms
+        List<String> drain(long ms) throws IOException {
+            long deadline = System.currentTimeMillis() + ms;
+            while (System.currentTimeMillis() < deadline) read();
+            seen = events.size();
+            return events;
+        }
+    }
+
+    private static boolean any(List<String> events, String prefix) {
+        return events.stream().anyMatch(event -> event.startsWith(prefix));
+    }
+
+    @Test
+    void resumeIsNotSeatedAgainstABot() throws Exception {
+        startServer(0); // --bots 0: a new player gets a bot in the same loop pass
+
+        Peer resuming = new Peer();
+        resuming.send(p -> {
+            p.writeHello();
+            p.writeResume(0x1234_5678L, 7);
+        });
+        resuming.await("onNoSession", 3000);
+        List<String> events = resuming.drain(500);
+        assertFalse(any(events, "onLobby"), events.toString());
+        assertFalse(any(events, "onMatched"), events.toString());
+        assertEquals(0, server.getBotMatches());
+
+        // A new player on the same server still gets its bot straight away
+        Peer player = new Peer();
+        player.send(p -> {
+            p.writeHello();
+            p.writePlayerName("alice");
+        });
+        player.await("onMatched", 3000);
+    }
+
+    @Test
+    void silentClientIsAdmittedAfterTheTimeout() throws Exception {
+        startServer(0);
+        Peer silent = new Peer(false); // Not even a pong, like a client that waits to be matched
+        silent.await("onLobby", 4000);
+        silent.await("onMatched", 1000);
+    }
+
+    @Test
+    void resumeTakesOverTheHeldSeat() throws Exception {
+        startServer(-1);
+        Peer alice = new Peer();
+        Peer bob = new Peer();
+        alice.send(p -> {
+            p.writeHello();
+            p.writePlayerName("alice");
+        });
+        bob.send(p -> {
+            p.writeHello();
+            p.writePlayerName("bob");
+        });
+        long token = Long.parseLong(alice.await("onSession:", 3000).substring("onSession:".length()));
+        bob.await("onSession:", 3000);
+
+        alice.drain(100);
+        long received = alice.protocol.getMessagesIn();
+        alice.socket.close();
+        bob.await("onAway", 3000);
+
+        Peer back = new Peer();
+        back.send(p -> {
+            p.writeHello();
+            p.writeResume(token, received);
+        });
+        back.await("onResumed", 3000);
+        bob.await("onResumed", 3000);
+        back.send(p -> p.writeChat("still here"));
+        bob.await("onChat:still here", 3000);
+
+        List<String> events = back.drain(300);
+        assertFalse(any(events, "onLobby"), events.toString());
+        assertFalse(any(events, "onMatched"), events.toString());
+        assertFalse(any(events, "onNoSession"), events.toString());
+        assertEquals(1, server.getActiveMatches());
+    }
+}
@@ -0,0 +1,110 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LocalGameStoreTest {
+    @TempDir
+    File dir;
+
+    private static GameResult game(String player1, String player2, String winner) {
+        return new GameResult(player1, player2, winner, 17, 9);
+    }
+
+    // Committed end offset, as stored at byte 8 of the header
+    private static long committedEnd(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(8);
+            return raf.readLong();
+        }
+    }
+
+    @Test
+    void gamesSurviveReopen() throws Exception {
+        File file = new File(dir, "games.log");
+        LocalGameStore store = new LocalGameStore(file);
+        assertTrue(store.saveGameResults(List.of(game("alice", "bob", "alice"), game("bob", "carol", "carol"))));
+        assertTrue(store.saveGameResults(List.of(game("alice", "carol", "alice"))));
+        store.close();
+
+        store = new LocalGameStore(file);
+        List<GameRecord> games = store.getGamesPage(GameHistoryQuery.all(), null, 10);
+        assertEquals(3, games.size());
+        assertEquals(3, games.get(0).getId()); // Newest first
+        assertEquals("alice", games.get(0).getWinner());
+        assertEquals("carol", games.get(1).getWinner());
+        assertEquals(1, games.get(2).getId());
+
+        PlayerStats leader = store.getLeaderboard().get(0);
+        assertEquals("alice", leader.getName());
+        assertEquals(2, leader.getWins());
+        assertEquals(0, leader.getLosses());
+        assertEquals(34, leader.getTotalHits());
+
+        List<GameRecord> bobs = store.getGamesPage(new GameHistoryQuery("bob", null, null), null, 10);
+        assertEquals(2, bobs.size());
+        store.close();
+    }
+
+    @Test
+    void partialBatchIsIgnoredOnReopen() throws Exception {
+        File file = new File(dir, "games.log");
+        LocalGameStore store = new LocalGameStore(file);
+        assertTrue(store.saveGameResults(List.of(game("alice", "bob", "alice"))));
+        store.close();
+        long end = committedEnd(file);
+
+        // A crash after the records of the next batch were written but before
+        // the header was updated: a whole record and a torn one past the end
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(end);
+            raf.writeByte(1);
+            raf.writeInt(40);
+            raf.write(new byte[40]);
+            raf.writeByte(1);
+            raf.writeInt(1000);
+            raf.write(new byte[7]);
+        }
+
+        store = new LocalGameStore(file);
+        assertEquals(1, store.getGamesPage(GameHistoryQuery.all(), null, 10).size());
+
+        // The next batch overwrites the abandoned records and continues the ids
+        assertTrue(store.saveGameResults(List.of(game("carol", "bob", "bob"))));
+        store.close();
+
+        store = new LocalGameStore(file);
+        List<GameRecord> games = store.getGamesPage(GameHistoryQuery.all(), null, 10);
+        assertEquals(2, games.size());
+        assertEquals(2, games.get(0).getId());
+        assertEquals("carol", games.get(0).getPlayer1());
+        store.close();
+    }
+
+    @Test
+    void storeGrowsPastTheInitialMapping() throws Exception {
+        File file = new File(dir, "games.log");
+        LocalGameStore store = new LocalGameStore(file);
+        String name = "x".repeat(2000);
+        for (int batch = 0; batch < 10; batch++) {
+            GameResult[] results = new GameResult[100];
+            for (int i = 0; i < results.length; i++) results[i] = game(name + batch, "bob", "bob");
+            assertTrue(store.saveGameResults(List.of(results)));
+        }
+        store.close();
+        assertTrue(committedEnd(file) > 1 << 20);
+
+        store = new LocalGameStore(file);
+        assertEquals(1000, store.getLeaderboard().get(0).getWins());
+        assertEquals(1000, store.getGamesPage(new GameHistoryQuery("bob", null, null), null, 2000).size());
+        store.close();
+    }
+}
@@ -0,0 +1,110 @@
+package proj;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplayWriterTest {
+    @TempDir
+    File dir;
+
+    private static byte[] game(String name0, String name1, int hits) {
+        ReplayRecorder recorder = new ReplayRecorder(Variant.STANDARD);
+        recorder.start(name0, name1, 0, 1_000_000);
+        for (int i = 0; i < hits; i++) {
+            recorder.attack(0, i, 1_000_000 + 100 * i);
+            recorder.result(true);
+        }
+        recorder.win(0);
+        return recorder.toRecord();
+    }
+
+    private File segment() {
+        return new File(dir, ReplayWriter.SEGMENT_PREFIX + LocalDate.now(ZoneId.systemDefault()) + ReplayWriter.SEGMENT_SUFFIX);
+    }
+
+    private void write(byte[]... records) throws IOException {
+        ReplayWriter writer = new ReplayWriter(dir);
+        for (byte[] record : records) writer.submit(record);
+        writer.close();
+        assertEquals(records.length, writer.getWritten());
+    }
+
+    @Test
+    void recordsRoundTrip() throws Exception {
+        write(game("alice", "bob", 3), game("carol", "dave", 5));
+        write(game("erin", "frank", 1)); // Appends to the same day's segment
+
+        List<Replay> replays = ReplayReader.read(segment());
+        assertEquals(3, replays.size());
+        assertArrayEquals(new String[]{"alice", "bob"}, replays.get(0).names);
+        assertEquals(5, replays.get(1).getMoveCount());
+        assertEquals("erin", replays.get(2).names[0]);
+        assertEquals(0, replays.get(2).winner);
+        assertEquals(Variant.STANDARD, replays.get(2).variant);
+    }
+
+    @Test
+    void tornLastRecordIsCutBeforeAppending() throws Exception {
+        write(game("alice", "bob", 3), game("carol", "dave", 5));
+        File file = segment();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 4); // Killed in the middle of the second record
+        }
+        assertEquals(1, ReplayReader.read(file).size());
+
+        write(game("erin", "frank", 1));
+        List<Replay> replays = ReplayReader.read(file);
+        assertEquals(2, replays.size());
+        assertEquals("alice", replays.get(0).names[0]);
+        assertEquals("erin", replays.get(1).names[0]);
+    }
+
+    @Test
+    void tornLengthPrefixIsCutBeforeAppending() throws Exception {
+        write(game("alice", "bob", 3));
+        File file = segment();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[]{0, 0}); // Half of the next length
+        }
+
+        write(game("carol", "dave", 2));
+        List<Replay> replays = ReplayReader.read(file);
+        assertEquals(2, replays.size());
+        assertEquals("carol", replays.get(1).names[0]);
+    }
+
+    @Test
+    void headerOnlySegmentGetsNoSecondHeader() throws Exception {
+        File file = segment();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(ReplayWriter.MAGIC);
+        }
+
+        write(game("alice", "bob", 3));
+        List<Replay> replays = ReplayReader.read(file);
+        assertEquals(1, replays.size());
+        assertEquals("alice", replays.get(0).names[0]);
+    }
+
+    @Test
+    void tornHeaderIsWrittenAgain() throws Exception {
+        File file = segment();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(ReplayWriter.MAGIC, 0, 3);
+        }
+
+        write(game("alice", "bob", 3));
+        assertEquals(1, ReplayReader.read(file).size());
+    }
+}
@@ -0,0 +1,74 @@
+package proj.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import proj.BitBoard;
+import proj.BotBrain;
+import proj.GameEngine;
+import proj.Model;
+
+// Hit resolution in GameEngine.onOpponentAttack (what Controller does for every
+// incoming ATTACK): resolve against our board, answer, announce sunk ships and
+// detect the lost fleet. One operation places the fleet through the engine (so
+// its Ships are tracked) and plays a whole game of attacks in random order.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttackBenchmark {
+    private final BitBoard fleet = new BitBoard();
+    private final int[] attacks = new int[BitBoard.CELLS];
+    private int[][] ships; // Cells of each ship of the fleet, in placement order
+    private GameEngine engine;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        BotBrain.placeFleet(fleet, random);
+        int count = 0;
+        for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+            count = Math.max(count, fleet.shipIdAt(cell / Model.GRID_SIZE, cell % Model.GRID_SIZE));
+        }
+        ships = new int[count][];
+        for (int id = 1; id <= count; id++) {
+            int[] cells = new int[BitBoard.CELLS];
+            int length = 0;
+            for (int cell = 0; cell < BitBoard.CELLS; cell++) {
+                if (fleet.shipIdAt(cell / Model.GRID_SIZE, cell % Model.GRID_SIZE) == id) cells[length++] = cell;
+            }
+            ships[id - 1] = Arrays.copyOf(cells, length);
+        }
+        for (int i = 0; i < attacks.length; i++) attacks[i] = i;
+        for (int i = attacks.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = attacks[i];
+            attacks[i] = attacks[j];
+            attacks[j] = t;
+        }
+
+        Headless headless = new Headless();
+        engine = new GameEngine(headless, headless);
+    }
+
+    @Benchmark
+    public int resolveAttacks() {
+        Model model = engine.getModel();
+        model.resetForRematch();
+        for (int[] ship : ships) {
+            engine.selectShipType(ship.length);
+            for (int cell : ship) {
+                engine.placeCell(cell / Model.GRID_SIZE, cell % Model.GRID_SIZE);
+            }
+        }
+
+        for (int cell : attacks) {
+            engine.onOpponentAttack(cell / Model.GRID_SIZE, cell % Model.GRID_SIZE);
+            if (model.gameOver) break;
+        }
+        return model.opponentHits;
+    }
+}
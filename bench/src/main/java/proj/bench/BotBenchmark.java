@@ -0,0 +1,39 @@
+package proj.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import proj.BitBoard;
+import proj.BotBrain;
+import proj.Model;
+
+// One bot move in the middle of a game: a dozen misses and a partly hit ship
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BotBenchmark {
+    private BotBrain brain;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        BitBoard target = new BitBoard();
+        BotBrain.placeFleet(target, random);
+        brain = new BotBrain(random);
+
+        int shots = 0;
+        while (shots < 16 && brain.hitCount() < 3) {
+            int cell = brain.chooseShot();
+            brain.recordShot(cell, target.receiveAttack(cell / Model.GRID_SIZE, cell % Model.GRID_SIZE));
+            shots++;
+        }
+    }
+
+    @Benchmark
+    public int chooseShot() {
+        return brain.chooseShot();
+    }
+}
@@ -0,0 +1,118 @@
+package proj.bench;
+
+import proj.GameListener;
+import proj.Opponent;
+import proj.Ship;
+import proj.Variant;
+
+// Opponent and listener that drop everything, for driving GameEngine alone
+class Headless implements Opponent, GameListener {
+    @Override
+    public void sendPlayerName(String name) {
+    }
+
+    @Override
+    public void sendReady() {
+    }
+
+    @Override
+    public void sendStartGame(boolean serverStarts) {
+    }
+
+    @Override
+    public void sendAttack(int row, int col) {
+    }
+
+    @Override
+    public void sendAttackResult(boolean isHit) {
+    }
+
+    @Override
+    public void sendWin() {
+    }
+
+    @Override
+    public void sendRematchRequest() {
+    }
+
+    @Override
+    public void sendRematchAccept() {
+    }
+
+    @Override
+    public void sendSunk(int row, int col, int size, boolean vertical) {
+    }
+
+    @Override
+    public void sendShip(int row, int col, int size, boolean vertical) {
+    }
+
+    @Override
+    public void sendVariant(Variant variant) {
+    }
+
+    @Override
+    public void sendSnapshot(byte[] snapshot) {
+    }
+
+    @Override
+    public void endSession() {
+    }
+
+    @Override
+    public void beginBatch() {
+    }
+
+    @Override
+    public void endBatch() {
+    }
+
+    @Override
+    public boolean isServer() {
+        return true;
+    }
+
+    @Override
+    public void onStatus(String message) {
+    }
+
+    @Override
+    public void onCellChanged(boolean ownBoard, int row, int col) {
+    }
+
+    @Override
+    public void onBoardsReset() {
+    }
+
+    @Override
+    public void onShipCountsChanged(int[] leftBySize) {
+    }
+
+    @Override
+    public void onShipSunk(boolean ownShip, Ship ship, int[] afloatBySize) {
+    }
+
+    @Override
+    public void onVariantChanged(Variant variant) {
+    }
+
+    @Override
+    public void onReadyChanged(boolean ready) {
+    }
+
+    @Override
+    public void onTurnChanged(boolean myTurn) {
+    }
+
+    @Override
+    public void onTimerChanged(int secondsLeft) {
+    }
+
+    @Override
+    public void onOpponentName(String name) {
+    }
+
+    @Override
+    public void onGameOver(boolean won, int myHits, int opponentHits) {
+    }
+}
@@ -0,0 +1,61 @@
+package proj.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import proj.BitBoard;
+import proj.Model;
+import proj.Ship;
+
+// Model work behind the placement grid: resetting for a rematch, and the
+// placement checks run on every click in Controller.handleMyGridClick
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+    private Model model;
+    private Model placing;
+
+    private static final Ship SHIP = new Ship("Small", 2, new int[]{BitBoard.index(1, 1), BitBoard.index(1, 2)});
+
+    @Setup
+    public void setup() {
+        model = new Model();
+
+        // Halfway through a horizontal medium ship at (3, 2)..(3, 3), with a large ship already down
+        placing = new Model();
+        for (int c = 0; c < Model.LARGE_SHIP_SIZE; c++) placing.myBoard.placeShip(0, c, 1);
+        placing.currentShipSize = Model.MEDIUM_SHIP_SIZE;
+        placing.myBoard.placeShip(3, 2, 2);
+        placing.myBoard.placeShip(3, 3, 2);
+        placing.currentShipCells[0] = BitBoard.index(3, 2);
+        placing.currentShipCells[1] = BitBoard.index(3, 3);
+        placing.placedCount = 2;
+        placing.direction = "H";
+        placing.directionLocked = true;
+    }
+
+    @Benchmark
+    public Model resetForRematch() {
+        // Dirty the state a finished game leaves behind, then reset it
+        model.placedShips.add(SHIP);
+        model.myBoard.placeShip(1, 1, 1);
+        model.myBoard.receiveAttack(1, 1);
+        model.isReady = true;
+        model.resetForRematch();
+        return model;
+    }
+
+    // Every cell of the grid checked against the ship being placed
+    @Benchmark
+    public void placementCheck(Blackhole bh) {
+        for (int r = 0; r < Model.GRID_SIZE; r++) {
+            for (int c = 0; c < Model.GRID_SIZE; c++) {
+                bh.consume(placing.placementError(r, c));
+            }
+        }
+    }
+}
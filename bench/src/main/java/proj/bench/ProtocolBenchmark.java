@@ -0,0 +1,204 @@
+package proj.bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import proj.ProtocolListener;
+import proj.WireProtocol;
+
+// Decoding a turn's worth of messages (what GameSocket's read loop does per read)
+// in both framings
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+    private final WireProtocol textDecoder = new WireProtocol();
+    private final WireProtocol binaryDecoder = new WireProtocol();
+    private ByteBuffer text;
+    private ByteBuffer binary;
+    private Listener listener;
+
+    // Counts calls into a Blackhole so nothing is optimized away
+    static class Listener implements ProtocolListener {
+        final Blackhole bh;
+
+        Listener(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void onHello() {
+            bh.consume(1);
+        }
+
+        @Override
+        public void onPlayerName(String name) {
+            bh.consume(name);
+        }
+
+        @Override
+        public void onReady() {
+            bh.consume(2);
+        }
+
+        @Override
+        public void onStart(boolean serverStarts) {
+            bh.consume(serverStarts);
+        }
+
+        @Override
+        public void onAttack(int row, int col) {
+            bh.consume(row);
+            bh.consume(col);
+        }
+
+        @Override
+        public void onResult(boolean isHit) {
+            bh.consume(isHit);
+        }
+
+        @Override
+        public void onWin() {
+            bh.consume(3);
+        }
+
+        @Override
+        public void onRematchRequest() {
+            bh.consume(4);
+        }
+
+        @Override
+        public void onRematchAccept() {
+            bh.consume(5);
+        }
+
+        @Override
+        public void onChat(String message) {
+            bh.consume(message);
+        }
+
+        @Override
+        public void onLobby() {
+            bh.consume(6);
+        }
+
+        @Override
+        public void onMatched() {
+            bh.consume(7);
+        }
+
+        @Override
+        public void onSunk(int row, int col, int size, boolean vertical) {
+            bh.consume(size);
+        }
+
+        @Override
+        public void onShip(int row, int col, int size, boolean vertical) {
+            bh.consume(size);
+        }
+
+        @Override
+        public void onSeat(int seat) {
+            bh.consume(seat);
+        }
+
+        @Override
+        public void onVariant(String spec) {
+            bh.consume(spec);
+        }
+
+        @Override
+        public void onPing(long token) {
+            bh.consume(token);
+        }
+
+        @Override
+        public void onPong(long token) {
+            bh.consume(token);
+        }
+
+        @Override
+        public void onSession(long token) {
+            bh.consume(token);
+        }
+
+        @Override
+        public void onResume(long token, long received) {
+            bh.consume(token);
+            bh.consume(received);
+        }
+
+        @Override
+        public void onResumed(long received) {
+            bh.consume(received);
+        }
+
+        @Override
+        public void onAway() {
+            bh.consume(8);
+        }
+
+        @Override
+        public void onSnapshot(byte[] snapshot) {
+            bh.consume(snapshot);
+        }
+
+        @Override
+        public void onNoSession() {
+            bh.consume(9);
+        }
+
+        @Override
+        public void onUnknown(String command) {
+            bh.consume(command);
+        }
+    }
+
+    @Setup
+    public void setup(Blackhole bh) {
+        listener = new Listener(bh);
+
+        WireProtocol textWriter = new WireProtocol();
+        writeTurn(textWriter);
+        text = copyPending(textWriter);
+
+        // Switch both sides to binary first, then keep only the frames
+        WireProtocol binaryWriter = new WireProtocol();
+        binaryWriter.switchToBinary();
+        binaryDecoder.decode(copyPending(binaryWriter), listener);
+        writeTurn(binaryWriter);
+        binary = copyPending(binaryWriter);
+    }
+
+    private static void writeTurn(WireProtocol writer) {
+        for (int i = 0; i < 8; i++) {
+            writer.writeAttack(i, 7 - i);
+            writer.writeResult(i % 3 == 0);
+        }
+        writer.writeChat("good game");
+    }
+
+    private static ByteBuffer copyPending(WireProtocol writer) {
+        ByteBuffer pending = writer.beginWrite();
+        ByteBuffer copy = ByteBuffer.allocate(pending.remaining());
+        copy.put(pending).flip();
+        writer.finishWrite();
+        return copy;
+    }
+
+    @Benchmark
+    public int decodeText() {
+        text.rewind();
+        return textDecoder.decode(text, listener);
+    }
+
+    @Benchmark
+    public int decodeBinary() {
+        binary.rewind();
+        return binaryDecoder.decode(binary, listener);
+    }
+}
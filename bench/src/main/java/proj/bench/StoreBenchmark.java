@@ -0,0 +1,51 @@
+package proj.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import proj.GameResult;
+import proj.LocalGameStore;
+
+// Game result writes against the embedded store, one batch per operation.
+// Each batch ends with a force() to disk, so this measures the durable write.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreBenchmark {
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private File dir;
+    private LocalGameStore store;
+    private final List<GameResult> batch = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("battleship-bench").toFile();
+        store = new LocalGameStore(new File(dir, "games.log"));
+        for (int i = 0; i < batchSize; i++) {
+            String player1 = "player" + (i % 50);
+            String player2 = "player" + (i % 37 + 50);
+            batch.add(new GameResult(player1, player2, i % 2 == 0 ? player1 : player2, 12, i % 12));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.close();
+        new File(dir, "games.log").delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public boolean saveGameResults() {
+        return store.saveGameResults(batch);
+    }
+}